@@ -0,0 +1,334 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Columnar storage for the tracks of a cached playlist.
+ * Every distinct string is stored once as UTF-8 in a single buffer, optionally off-heap, and each track field is a column of indices into that dictionary.
+ * A read hands out a list view which builds each track the first time its index is accessed, so tracks nobody looks at are never created.
+ * The view can be modified like the {@link ArrayList} of a freshly loaded playlist.
+ */
+public class CompactTrackList {
+
+  private static final int TITLE = 0;
+  private static final int AUTHOR = 1;
+  private static final int IDENTIFIER = 2;
+  private static final int URI = 3;
+  private static final int ARTWORK_URL = 4;
+  private static final int ISRC = 5;
+  private static final int ALBUM_NAME = 6;
+  private static final int ALBUM_URL = 7;
+  private static final int ARTIST_URL = 8;
+  private static final int ARTIST_ARTWORK_URL = 9;
+  private static final int PREVIEW_URL = 10;
+  private static final int FIELD_COUNT = 11;
+
+  private final int size;
+  private final ByteBuffer strings;
+  private final int[] stringOffsets;
+  private final int[][] columns;
+  private final long[] lengths;
+  private final BitSet streams;
+  private final BitSet previews;
+
+  private CompactTrackList(
+    int size,
+    ByteBuffer strings,
+    int[] stringOffsets,
+    int[][] columns,
+    long[] lengths,
+    BitSet streams,
+    BitSet previews
+  ) {
+    this.size = size;
+    this.strings = strings;
+    this.stringOffsets = stringOffsets;
+    this.columns = columns;
+    this.lengths = lengths;
+    this.streams = streams;
+    this.previews = previews;
+  }
+
+  /**
+   * Packs the tracks, or returns null if any of them isn't an {@link ExtendedAudioTrack}.
+   */
+  @Nullable
+  public static CompactTrackList of(List<AudioTrack> tracks, boolean offHeap) {
+    var size = tracks.size();
+    var dictionary = new HashMap<String, Integer>();
+    var values = new ArrayList<byte[]>();
+    var columns = new int[FIELD_COUNT][size];
+    var lengths = new long[size];
+    var streams = new BitSet(size);
+    var previews = new BitSet(size);
+
+    for (var i = 0; i < size; i++) {
+      if (!(tracks.get(i) instanceof ExtendedAudioTrack)) {
+        return null;
+      }
+      var track = (ExtendedAudioTrack) tracks.get(i);
+      var info = track.getInfo();
+      var fields = new String[] {
+        info.title,
+        info.author,
+        info.identifier,
+        info.uri,
+        info.artworkUrl,
+        info.isrc,
+        track.getAlbumName(),
+        track.getAlbumUrl(),
+        track.getArtistUrl(),
+        track.getArtistArtworkUrl(),
+        track.getPreviewUrl(),
+      };
+      for (var field = 0; field < FIELD_COUNT; field++) {
+        var value = fields[field];
+        if (value == null) {
+          columns[field][i] = -1;
+          continue;
+        }
+        columns[field][i] =
+          dictionary.computeIfAbsent(
+            value,
+            key -> {
+              values.add(key.getBytes(StandardCharsets.UTF_8));
+              return values.size() - 1;
+            }
+          );
+      }
+      lengths[i] = info.length;
+      streams.set(i, info.isStream);
+      previews.set(i, track.isPreview());
+    }
+
+    var stringOffsets = new int[values.size() + 1];
+    var total = 0;
+    for (var i = 0; i < values.size(); i++) {
+      stringOffsets[i] = total;
+      total += values.get(i).length;
+    }
+    stringOffsets[values.size()] = total;
+
+    var strings = offHeap
+      ? ByteBuffer.allocateDirect(total)
+      : ByteBuffer.allocate(total);
+    for (var value : values) {
+      strings.put(value);
+    }
+    strings.flip();
+
+    return new CompactTrackList(
+      size,
+      strings.asReadOnlyBuffer(),
+      stringOffsets,
+      columns,
+      lengths,
+      streams,
+      previews
+    );
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Approximate number of bytes retained by this list, including off-heap memory.
+   */
+  public long getRetainedSize() {
+    return (
+      64L +
+      this.strings.capacity() +
+      this.stringOffsets.length * 4L +
+      (long) FIELD_COUNT * this.size * 4L +
+      this.size * 8L +
+      this.size / 4
+    );
+  }
+
+  /**
+   * Returns a list view creating fresh track instances through the given factory on access, or null if the factory can't recreate them.
+   * Like an {@link ArrayList} the view supports all list operations and is not thread safe. Replacing a track only overrides its slot,
+   * the first insertion or removal creates the remaining tracks and moves them into an {@link ArrayList} the view then delegates to.
+   */
+  @Nullable
+  public List<AudioTrack> materialize(MetadataCache.TrackFactory factory) {
+    var tracks = new LazyTrackList(factory);
+    // factories either recreate every track of their source or none, so the first one tells
+    if (this.size > 0 && tracks.get(0) == null) {
+      return null;
+    }
+    return tracks;
+  }
+
+  /**
+   * Returns the identifiers of the tracks, without creating the tracks of a list view handed out by {@link #materialize}.
+   */
+  public static List<String> getIdentifiers(List<AudioTrack> tracks) {
+    var identifiers = new ArrayList<String>(tracks.size());
+    if (tracks instanceof CompactTrackList.LazyTrackList) {
+      var lazyTracks = (CompactTrackList.LazyTrackList) tracks;
+      for (var i = 0; i < lazyTracks.size(); i++) {
+        identifiers.add(lazyTracks.getIdentifier(i));
+      }
+    } else {
+      for (var track : tracks) {
+        identifiers.add(track.getIdentifier());
+      }
+    }
+    return identifiers;
+  }
+
+  @Nullable
+  private AudioTrack create(
+    MetadataCache.TrackFactory factory,
+    String[] decoded,
+    int i
+  ) {
+    return factory.create(
+      new AudioTrackInfo(
+        this.get(decoded, TITLE, i),
+        this.get(decoded, AUTHOR, i),
+        this.lengths[i],
+        this.get(decoded, IDENTIFIER, i),
+        this.streams.get(i),
+        this.get(decoded, URI, i),
+        this.get(decoded, ARTWORK_URL, i),
+        this.get(decoded, ISRC, i)
+      ),
+      new ExtendedAudioSourceManager.ExtendedAudioTrackInfo(
+        this.get(decoded, ALBUM_NAME, i),
+        this.get(decoded, ALBUM_URL, i),
+        this.get(decoded, ARTIST_ARTWORK_URL, i),
+        this.get(decoded, PREVIEW_URL, i),
+        this.get(decoded, ARTIST_URL, i),
+        this.previews.get(i)
+      )
+    );
+  }
+
+  @Nullable
+  private String get(String[] decoded, int field, int index) {
+    var value = this.columns[field][index];
+    if (value == -1) {
+      return null;
+    }
+    if (decoded[value] != null) {
+      return decoded[value];
+    }
+    var offset = this.stringOffsets[value];
+    var bytes = new byte[this.stringOffsets[value + 1] - offset];
+    // a duplicate has its own position, which keeps the shared buffer safe for concurrent readers
+    this.strings.duplicate().position(offset).get(bytes);
+    var string = new String(bytes, StandardCharsets.UTF_8);
+    // fields shared between tracks are pooled, so they are also shared with tracks from other loads
+    decoded[value] =
+      field == TITLE || field == IDENTIFIER || field == URI || field == ISRC
+        ? string
+        : StringPool.intern(string);
+    return decoded[value];
+  }
+
+  private class LazyTrackList
+    extends AbstractList<AudioTrack>
+    implements RandomAccess {
+
+    private final MetadataCache.TrackFactory factory;
+    private final AudioTrack[] tracks = new AudioTrack[size];
+    // decoded dictionary entries, so tracks of one list share their album and artist strings
+    private final String[] decoded = new String[stringOffsets.length - 1];
+    // set once the list was structurally modified, all operations delegate to it from then on
+    @Nullable
+    private ArrayList<AudioTrack> modified;
+
+    private LazyTrackList(MetadataCache.TrackFactory factory) {
+      this.factory = factory;
+    }
+
+    @Override
+    public AudioTrack get(int index) {
+      if (this.modified != null) {
+        return this.modified.get(index);
+      }
+      Objects.checkIndex(index, size);
+      if (this.tracks[index] == null) {
+        this.tracks[index] = create(this.factory, this.decoded, index);
+      }
+      return this.tracks[index];
+    }
+
+    @Override
+    public AudioTrack set(int index, AudioTrack track) {
+      // an empty slot means not created yet, so nulls are kept in the modified list instead
+      if (this.modified != null || track == null) {
+        return this.modify().set(index, track);
+      }
+      var previous = this.get(index);
+      this.tracks[index] = track;
+      return previous;
+    }
+
+    @Override
+    public void add(int index, AudioTrack track) {
+      this.modify().add(index, track);
+      this.modCount++;
+    }
+
+    @Override
+    public AudioTrack remove(int index) {
+      var track = this.modify().remove(index);
+      this.modCount++;
+      return track;
+    }
+
+    @Override
+    protected void removeRange(int fromIndex, int toIndex) {
+      this.modify().subList(fromIndex, toIndex).clear();
+      this.modCount++;
+    }
+
+    @Override
+    public void clear() {
+      // no need to create the tracks just to drop them
+      this.modified = new ArrayList<>();
+      this.modCount++;
+    }
+
+    private ArrayList<AudioTrack> modify() {
+      if (this.modified == null) {
+        var tracks = new ArrayList<AudioTrack>(size);
+        for (var i = 0; i < size; i++) {
+          tracks.add(this.get(i));
+        }
+        this.modified = tracks;
+      }
+      return this.modified;
+    }
+
+    private String getIdentifier(int index) {
+      if (this.modified != null) {
+        return this.modified.get(index).getIdentifier();
+      }
+      if (this.tracks[index] != null) {
+        return this.tracks[index].getIdentifier();
+      }
+      return CompactTrackList.this.get(this.decoded, IDENTIFIER, index);
+    }
+
+    @Override
+    public int size() {
+      return this.modified != null ? this.modified.size() : size;
+    }
+  }
+}
@@ -0,0 +1,235 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
+import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rotates requests across multiple API credentials.
+ * Every request is routed to the credential with the most rate limit headroom, and a request answered with 429 is retried with the next best credential.
+ * When every credential is rate limited, requests wait for the first one to recover if that is close, and fail right away otherwise.
+ */
+public class CredentialPool<C> {
+
+  public static final long WINDOW_MS = 30_000;
+  public static final int DEFAULT_WINDOW_LIMIT = 180;
+  public static final long DEFAULT_RETRY_AFTER_MS = 5_000;
+  public static final long MAX_RATE_LIMIT_WAIT_MS = 5_000;
+  private static final int TOO_MANY_REQUESTS = 429;
+  private static final Logger log = LoggerFactory.getLogger(
+    CredentialPool.class
+  );
+
+  private final List<Entry<C>> entries;
+  private final int windowLimit;
+
+  public CredentialPool(List<C> credentials) {
+    this(credentials, DEFAULT_WINDOW_LIMIT);
+  }
+
+  public CredentialPool(List<C> credentials, int windowLimit) {
+    if (credentials.isEmpty()) {
+      throw new IllegalArgumentException("At least one credential is required");
+    }
+    this.entries = new ArrayList<>(credentials.size());
+    for (var credential : credentials) {
+      this.entries.add(new Entry<>(credential));
+    }
+    this.windowLimit = windowLimit;
+  }
+
+  public int size() {
+    return this.entries.size();
+  }
+
+  public List<C> getCredentials() {
+    return this.entries.stream().map(entry -> entry.credential).collect(Collectors.toList());
+  }
+
+  /**
+   * Returns the credential with the most headroom without reserving it.
+   */
+  public C peek() {
+    var entry = this.select(System.currentTimeMillis());
+    return entry != null ? entry.credential : this.getFirstRecovering().credential;
+  }
+
+  @Nullable
+  public JsonBrowser fetchResponseAsJson(
+    HttpInterface httpInterface,
+    RequestFactory<C> requestFactory
+  ) throws IOException {
+    return this.fetch(requestFactory, (request, inspector) -> LavaSrcTools.fetchResponseAsJson(httpInterface, request, inspector));
+  }
+
+  @Nullable
+  public String fetchResponseAsString(
+    HttpInterface httpInterface,
+    RequestFactory<C> requestFactory
+  ) throws IOException {
+    return this.fetch(requestFactory, (request, inspector) -> LavaSrcTools.fetchResponseAsString(httpInterface, request, inspector));
+  }
+
+  private <T> T fetch(
+    RequestFactory<C> requestFactory,
+    ResponseFetcher<T> fetcher
+  ) throws IOException {
+    FriendlyException lastException = null;
+    for (var attempt = 0; attempt < this.entries.size(); attempt++) {
+      var entry = this.acquire();
+      try {
+        var request = requestFactory.create(entry.credential);
+        return fetcher.fetch(request, entry::update);
+      } catch (FriendlyException e) {
+        if (!entry.isRateLimited(System.currentTimeMillis())) {
+          throw e;
+        }
+        log.warn("Credential {} of {} got rate limited, retrying with another one", this.entries.indexOf(entry) + 1, this.entries.size());
+        lastException = e;
+      } finally {
+        entry.release();
+      }
+    }
+    throw lastException;
+  }
+
+  @Nullable
+  private synchronized Entry<C> select(long now) {
+    Entry<C> best = null;
+    var bestHeadroom = Long.MIN_VALUE;
+    for (var entry : this.entries) {
+      if (entry.isRateLimited(now)) {
+        continue;
+      }
+      var headroom = entry.getHeadroom(now, this.windowLimit);
+      if (best == null || headroom > bestHeadroom) {
+        best = entry;
+        bestHeadroom = headroom;
+      }
+    }
+    return best;
+  }
+
+  private Entry<C> getFirstRecovering() {
+    return this.entries.stream().min(Comparator.comparingLong(Entry::getRateLimitedUntil)).orElseThrow();
+  }
+
+  private Entry<C> acquire() throws IOException {
+    while (true) {
+      var now = System.currentTimeMillis();
+      synchronized (this) {
+        var entry = this.select(now);
+        if (entry != null) {
+          entry.acquire(now);
+          return entry;
+        }
+      }
+      var wait = this.getFirstRecovering().getRateLimitedUntil() - now;
+      if (wait > MAX_RATE_LIMIT_WAIT_MS) {
+        throw new FriendlyException("All credentials are rate limited.", FriendlyException.Severity.SUSPICIOUS,
+          new IllegalStateException("All " + this.entries.size() + " credentials are rate limited for another " + wait + "ms"));
+      }
+      try {
+        Thread.sleep(Math.max(1, wait));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for a credential to recover from its rate limit");
+      }
+    }
+  }
+
+  @FunctionalInterface
+  public interface RequestFactory<C> {
+    HttpUriRequest create(C credential) throws IOException;
+  }
+
+  @FunctionalInterface
+  private interface ResponseFetcher<T> {
+    T fetch(HttpUriRequest request, Consumer<HttpResponse> responseInspector) throws IOException;
+  }
+
+  private static class Entry<C> {
+
+    private final C credential;
+    private int inFlight;
+    private long windowStart;
+    private int windowRequests;
+    private int remaining = -1;
+    private long resetAt;
+    private long rateLimitedUntil;
+
+    private Entry(C credential) {
+      this.credential = credential;
+    }
+
+    private synchronized void acquire(long now) {
+      if (now - this.windowStart > WINDOW_MS) {
+        this.windowStart = now;
+        this.windowRequests = 0;
+      }
+      this.windowRequests++;
+      this.inFlight++;
+    }
+
+    private synchronized void release() {
+      this.inFlight--;
+    }
+
+    private synchronized boolean isRateLimited(long now) {
+      return this.rateLimitedUntil > now;
+    }
+
+    private synchronized long getRateLimitedUntil() {
+      return this.rateLimitedUntil;
+    }
+
+    private synchronized long getHeadroom(long now, int windowLimit) {
+      if (this.remaining >= 0 && this.resetAt > now) {
+        return this.remaining - this.inFlight;
+      }
+      var windowRequests = now - this.windowStart > WINDOW_MS ? 0 : this.windowRequests;
+      return windowLimit - windowRequests - this.inFlight;
+    }
+
+    private synchronized void update(HttpResponse response) {
+      var now = System.currentTimeMillis();
+      if (response.getStatusLine().getStatusCode() == TOO_MANY_REQUESTS) {
+        this.rateLimitedUntil = now + parseMillis(response, "Retry-After", DEFAULT_RETRY_AFTER_MS);
+        return;
+      }
+      var remaining = response.getFirstHeader("X-RateLimit-Remaining");
+      if (remaining != null) {
+        try {
+          this.remaining = Integer.parseInt(remaining.getValue().trim());
+          this.resetAt = now + parseMillis(response, "X-RateLimit-Reset", WINDOW_MS);
+        } catch (NumberFormatException ignored) {
+          this.remaining = -1;
+        }
+      }
+    }
+
+    private static long parseMillis(HttpResponse response, String name, long defaultValue) {
+      var header = response.getFirstHeader(name);
+      if (header == null) {
+        return defaultValue;
+      }
+      try {
+        return Long.parseLong(header.getValue().trim()) * 1000;
+      } catch (NumberFormatException e) {
+        return defaultValue;
+      }
+    }
+  }
+}
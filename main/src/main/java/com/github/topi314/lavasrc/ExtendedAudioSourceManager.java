@@ -2,27 +2,164 @@ package com.github.topi314.lavasrc;
 
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.tools.DataFormatTools;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import org.jetbrains.annotations.Nullable;
 
 public abstract class ExtendedAudioSourceManager implements AudioSourceManager {
 
+  // Tracks encoded before the versioned format start with the presence flag of the album name, which is either 0 or 1,
+  // so a header byte with the high bits set tells both formats apart. The low bits carry the version.
+  private static final int FORMAT_MARKER = 0xE0;
+  private static final int FORMAT_MARKER_MASK = 0xF0;
+  private static final int FORMAT_VERSION = 1;
+  private static final int FIELD_COUNT = 5;
+  private static final int FLAG_PREVIEW = 1 << 5;
+  private static final int FLAG_EXTENSION = 1 << 6;
+
+  @Nullable
+  private MetadataCache metadataCache = MetadataCache.getShared();
+
+  /**
+   * Sets the cache parsed tracks and playlists are kept in, null disables caching.
+   */
+  public void setMetadataCache(@Nullable MetadataCache metadataCache) {
+    this.metadataCache = metadataCache;
+  }
+
+  @Nullable
+  public MetadataCache getMetadataCache() {
+    return this.metadataCache;
+  }
+
+  protected AudioItem loadCached(
+    MetadataCache.Type type,
+    String id,
+    @Nullable String market,
+    LavaSrcTools.IOSupplier<AudioItem> loader
+  ) throws IOException {
+    var metadataCache = this.metadataCache;
+    if (metadataCache == null) {
+      return loader.get();
+    }
+    var cached = this.getCached(type, id, market);
+    if (cached != null) {
+      return cached;
+    }
+    return metadataCache.get(
+      this.getSourceName(),
+      type,
+      id,
+      market,
+      loader,
+      this::createTrack
+    );
+  }
+
+  /**
+   * Returns a copy of the cached item without loading it, for sources which need to check whether a cached item is still current first.
+   */
+  @Nullable
+  protected AudioItem getCached(
+    MetadataCache.Type type,
+    String id,
+    @Nullable String market
+  ) {
+    var metadataCache = this.metadataCache;
+    if (metadataCache == null) {
+      return null;
+    }
+    var cached = metadataCache.getIfPresent(
+      this.getSourceName(),
+      type,
+      id,
+      market
+    );
+    if (cached != null) {
+      this.onCacheHit(type, cached);
+    }
+    return cached;
+  }
+
+  /**
+   * Stores an item loaded without {@link #loadCached}, returning whether caching is enabled.
+   */
+  protected boolean putCached(
+    MetadataCache.Type type,
+    String id,
+    @Nullable String market,
+    AudioItem item
+  ) {
+    var metadataCache = this.metadataCache;
+    if (metadataCache == null) {
+      return false;
+    }
+    metadataCache.put(
+      this.getSourceName(),
+      type,
+      id,
+      market,
+      item,
+      this::createTrack
+    );
+    return true;
+  }
+
+  /**
+   * Called with every item served from the metadata cache instead of being loaded, for sources which keep state about loaded items.
+   */
+  protected void onCacheHit(MetadataCache.Type type, AudioItem item) {}
+
+  /**
+   * Recreates a track of this source from its info and extended fields, or returns null if the source can't.
+   */
+  @Nullable
+  protected AudioTrack createTrack(
+    AudioTrackInfo trackInfo,
+    ExtendedAudioTrackInfo extendedInfo
+  ) {
+    return null;
+  }
+
   @Override
   public void encodeTrack(AudioTrack track, DataOutput output)
     throws IOException {
     var extendedTrack = (ExtendedAudioTrack) track;
-    DataFormatTools.writeNullableText(output, extendedTrack.getAlbumName());
-    DataFormatTools.writeNullableText(output, extendedTrack.getAlbumUrl());
-    DataFormatTools.writeNullableText(output, extendedTrack.getArtistUrl());
-    DataFormatTools.writeNullableText(
-      output,
-      extendedTrack.getArtistArtworkUrl()
-    );
-    DataFormatTools.writeNullableText(output, extendedTrack.getPreviewUrl());
-    output.writeBoolean(extendedTrack.isPreview());
+    var fields = new String[] {
+      extendedTrack.getAlbumName(),
+      extendedTrack.getAlbumUrl(),
+      extendedTrack.getArtistUrl(),
+      extendedTrack.getArtistArtworkUrl(),
+      extendedTrack.getPreviewUrl(),
+    };
+    var flags = extendedTrack.isPreview() ? FLAG_PREVIEW : 0;
+    var payload = new ByteArrayOutputStream();
+    var payloadOutput = new DataOutputStream(payload);
+    for (var i = 0; i < fields.length; i++) {
+      if (fields[i] != null) {
+        flags |= 1 << i;
+        payloadOutput.writeUTF(fields[i]);
+      }
+    }
+    var extension = this.encodeExtension(extendedTrack);
+    if (extension != null) {
+      flags |= FLAG_EXTENSION;
+      writeVarInt(payloadOutput, extension.length);
+      payloadOutput.write(extension);
+    }
+
+    output.writeByte(FORMAT_MARKER | FORMAT_VERSION);
+    output.writeByte(flags);
+    writeVarInt(output, payload.size());
+    output.write(payload.toByteArray());
   }
 
   @Override
@@ -30,24 +167,78 @@ public abstract class ExtendedAudioSourceManager implements AudioSourceManager {
     return true;
   }
 
+  /**
+   * Returns source specific data stored after the extended fields, or null if there is none.
+   * It is handed back through {@link ExtendedAudioTrackInfo#extension} when decoding.
+   */
+  @Nullable
+  protected byte[] encodeExtension(ExtendedAudioTrack track)
+    throws IOException {
+    return null;
+  }
+
   protected ExtendedAudioTrackInfo decodeTrack(DataInput input)
     throws IOException {
-    String albumName = null;
-    String albumUrl = null;
-    String artistUrl = null;
-    String artistArtworkUrl = null;
-    String previewUrl = null;
-    boolean isPreview = false;
-    // Check if the input has more than 8 bytes available, which would indicate that the preview field is present.
-    // This is done to avoid breaking backwards compatibility with tracks that were saved before the preview field was added.
-    if (((DataInputStream) input).available() > Long.BYTES) {
-      albumName = DataFormatTools.readNullableText(input);
-      albumUrl = DataFormatTools.readNullableText(input);
-      artistUrl = DataFormatTools.readNullableText(input);
-      artistArtworkUrl = DataFormatTools.readNullableText(input);
-      previewUrl = DataFormatTools.readNullableText(input);
-      isPreview = input.readBoolean();
+    // Tracks saved before the extended fields were added only have the 8 byte position lavaplayer writes after the source data left.
+    // Anything encoded since is longer, so this is only checked where the remaining length is known.
+    if (
+      input instanceof DataInputStream &&
+      ((DataInputStream) input).available() <= Long.BYTES
+    ) {
+      return new ExtendedAudioTrackInfo(null, null, null, null, null, false);
+    }
+    // the header byte of the legacy format is the presence flag of the album name, so it is consumed either way
+    var header = input.readUnsignedByte();
+    if (isVersioned(header)) {
+      return decodeVersioned(input);
+    }
+    return decodeLegacy(input, header != 0);
+  }
+
+  private static boolean isVersioned(int header) {
+    return (header & FORMAT_MARKER_MASK) == FORMAT_MARKER;
+  }
+
+  private static ExtendedAudioTrackInfo decodeVersioned(DataInput input)
+    throws IOException {
+    var flags = input.readUnsignedByte();
+    var payload = new byte[readVarInt(input)];
+    input.readFully(payload);
+
+    // fields are read in flag order, anything a newer version appended after them is skipped along with the payload
+    var payloadInput = new DataInputStream(new ByteArrayInputStream(payload));
+    var fields = new String[FIELD_COUNT];
+    for (var i = 0; i < FIELD_COUNT; i++) {
+      if ((flags & (1 << i)) != 0) {
+        fields[i] = payloadInput.readUTF();
+      }
+    }
+    byte[] extension = null;
+    if ((flags & FLAG_EXTENSION) != 0) {
+      extension = new byte[readVarInt(payloadInput)];
+      payloadInput.readFully(extension);
     }
+    return new ExtendedAudioTrackInfo(
+      fields[0],
+      fields[1],
+      fields[3],
+      fields[4],
+      fields[2],
+      (flags & FLAG_PREVIEW) != 0,
+      extension
+    );
+  }
+
+  private static ExtendedAudioTrackInfo decodeLegacy(
+    DataInput input,
+    boolean hasAlbumName
+  ) throws IOException {
+    var albumName = hasAlbumName ? input.readUTF() : null;
+    var albumUrl = DataFormatTools.readNullableText(input);
+    var artistUrl = DataFormatTools.readNullableText(input);
+    var artistArtworkUrl = DataFormatTools.readNullableText(input);
+    var previewUrl = DataFormatTools.readNullableText(input);
+    var isPreview = input.readBoolean();
     return new ExtendedAudioTrackInfo(
       albumName,
       albumUrl,
@@ -58,7 +249,28 @@ public abstract class ExtendedAudioSourceManager implements AudioSourceManager {
     );
   }
 
-  protected static class ExtendedAudioTrackInfo {
+  protected static void writeVarInt(DataOutput output, int value)
+    throws IOException {
+    while ((value & ~0x7F) != 0) {
+      output.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    output.writeByte(value);
+  }
+
+  protected static int readVarInt(DataInput input) throws IOException {
+    var value = 0;
+    for (var shift = 0; shift < 32; shift += 7) {
+      var b = input.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed track length");
+  }
+
+  public static class ExtendedAudioTrackInfo {
 
     public final String albumName;
     public final String albumUrl;
@@ -67,6 +279,9 @@ public abstract class ExtendedAudioSourceManager implements AudioSourceManager {
     public final String artistUrl;
     public final boolean isPreview;
 
+    @Nullable
+    public final byte[] extension;
+
     public ExtendedAudioTrackInfo(
       String albumName,
       String albumUrl,
@@ -74,6 +289,26 @@ public abstract class ExtendedAudioSourceManager implements AudioSourceManager {
       String previewUrl,
       String artistUrl,
       boolean isPreview
+    ) {
+      this(
+        albumName,
+        albumUrl,
+        artistArtworkUrl,
+        previewUrl,
+        artistUrl,
+        isPreview,
+        null
+      );
+    }
+
+    public ExtendedAudioTrackInfo(
+      String albumName,
+      String albumUrl,
+      String artistArtworkUrl,
+      String previewUrl,
+      String artistUrl,
+      boolean isPreview,
+      @Nullable byte[] extension
     ) {
       this.albumName = albumName;
       this.albumUrl = albumUrl;
@@ -81,6 +316,7 @@ public abstract class ExtendedAudioSourceManager implements AudioSourceManager {
       this.previewUrl = previewUrl;
       this.artistUrl = artistUrl;
       this.isPreview = isPreview;
+      this.extension = extension;
     }
   }
 }
@@ -0,0 +1,14 @@
+package com.github.topi314.lavasrc;
+
+/**
+ * Implemented by source managers which can hand out the first page of a playlist or album while the remaining pages are still loading.
+ */
+public interface IncrementalPlaylistLoader {
+  /**
+   * Loads the playlist or album behind the identifier. Returns once the first page was handed to
+   * {@link PlaylistPageHandler#playlistLoaded(ExtendedAudioPlaylist)}, the remaining pages are delivered in the background.
+   *
+   * @return false if the identifier is not a playlist or album of this source
+   */
+  boolean loadPlaylist(String identifier, PlaylistPageHandler handler);
+}
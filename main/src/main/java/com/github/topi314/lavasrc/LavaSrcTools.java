@@ -2,13 +2,27 @@ package com.github.topi314.lavasrc;
 
 import static com.sedmelluq.discord.lavaplayer.tools.FriendlyException.Severity.SUSPICIOUS;
 
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpUriRequest;
@@ -18,14 +32,43 @@ import org.slf4j.LoggerFactory;
 
 public class LavaSrcTools {
 
+  public static final int LOADER_THREADS = 8;
   private static final Logger log = LoggerFactory.getLogger(LavaSrcTools.class);
 
   @Nullable
   public static JsonBrowser fetchResponseAsJson(
     HttpInterface httpInterface,
     HttpUriRequest request
+  ) throws IOException {
+    return fetchResponseAsJson(httpInterface, request, null);
+  }
+
+  /**
+   * Same as {@link #fetchResponseAsJson(HttpInterface, HttpUriRequest)}, but hands the raw response to {@code responseInspector} before its status is checked.
+   */
+  @Nullable
+  public static JsonBrowser fetchResponseAsJson(
+    HttpInterface httpInterface,
+    HttpUriRequest request,
+    @Nullable Consumer<HttpResponse> responseInspector
+  ) throws IOException {
+    var data = fetchResponseAsString(httpInterface, request, responseInspector);
+    return data == null ? null : JsonBrowser.parse(data);
+  }
+
+  /**
+   * Same as {@link #fetchResponseAsJson(HttpInterface, HttpUriRequest, Consumer)}, but returns the raw response body.
+   */
+  @Nullable
+  public static String fetchResponseAsString(
+    HttpInterface httpInterface,
+    HttpUriRequest request,
+    @Nullable Consumer<HttpResponse> responseInspector
   ) throws IOException {
     try (CloseableHttpResponse response = httpInterface.execute(request)) {
+      if (responseInspector != null) {
+        responseInspector.accept(response);
+      }
       int statusCode = response.getStatusLine().getStatusCode();
 
       if (statusCode == HttpStatus.SC_NOT_FOUND) {
@@ -63,11 +106,164 @@ public class LavaSrcTools {
         StandardCharsets.UTF_8
       );
       log.debug("Response from '{}' was successful: {}", request.getURI(), data);
-      return JsonBrowser.parse(data);
+      return data;
     }
   }
 
     public static Object fetchResponseAsJson(CloseableHttpResponse response) {
         return null;
     }
+
+  /**
+   * Creates a bounded daemon thread pool for running page and metadata requests of a source concurrently.
+   */
+  public static ExecutorService createLoaderExecutor(String name) {
+    return Executors.newFixedThreadPool(
+      LOADER_THREADS,
+      new DaemonThreadFactory(name + "-loader")
+    );
+  }
+
+  public static <T> CompletableFuture<T> supplyAsync(
+    IOSupplier<T> supplier,
+    Executor executor
+  ) {
+    return CompletableFuture.supplyAsync(
+      () -> {
+        try {
+          return supplier.get();
+        } catch (IOException e) {
+          throw new CompletionException(e);
+        }
+      },
+      executor
+    );
+  }
+
+  public static <T> T await(CompletableFuture<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for response", e);
+    } catch (ExecutionException e) {
+      var cause = e.getCause();
+      if (cause instanceof CompletionException && cause.getCause() != null) {
+        cause = cause.getCause();
+      }
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Waits for all futures and returns their results in the order they were passed in.
+   */
+  public static <T> List<T> awaitAll(List<CompletableFuture<T>> futures)
+    throws IOException {
+    var results = new ArrayList<T>(futures.size());
+    try {
+      for (var future : futures) {
+        results.add(await(future));
+      }
+    } catch (IOException | RuntimeException e) {
+      futures.forEach(future -> future.cancel(false));
+      throw e;
+    }
+    return results;
+  }
+
+  /**
+   * Runs the suppliers concurrently and returns their results in order. The calling thread runs every supplier no executor thread has started yet,
+   * so this may be called from a task of the same executor without waiting on tasks queued behind it.
+   */
+  public static <T> List<T> invokeAll(
+    List<IOSupplier<T>> suppliers,
+    Executor executor
+  ) throws IOException {
+    var started = new AtomicBoolean[suppliers.size()];
+    var futures = new ArrayList<CompletableFuture<T>>(suppliers.size());
+    for (var i = 0; i < suppliers.size(); i++) {
+      started[i] = new AtomicBoolean();
+      futures.add(new CompletableFuture<>());
+    }
+    for (var i = 1; i < suppliers.size(); i++) {
+      var index = i;
+      executor.execute(() ->
+        run(suppliers.get(index), started[index], futures.get(index))
+      );
+    }
+    for (var i = 0; i < suppliers.size(); i++) {
+      run(suppliers.get(i), started[i], futures.get(i));
+    }
+    return awaitAll(futures);
+  }
+
+  private static <T> void run(
+    IOSupplier<T> supplier,
+    AtomicBoolean started,
+    CompletableFuture<T> future
+  ) {
+    if (!started.compareAndSet(false, true) || future.isDone()) {
+      return;
+    }
+    try {
+      future.complete(supplier.get());
+    } catch (Throwable e) {
+      future.completeExceptionally(e);
+    }
+  }
+
+  public static List<AudioTrack> flatten(List<List<AudioTrack>> pages) {
+    var tracks = new ArrayList<AudioTrack>();
+    pages.forEach(tracks::addAll);
+    return tracks;
+  }
+
+  /**
+   * Hands the playlist built from the first page to the handler and delivers the remaining pages in order as they complete.
+   */
+  public static void loadPagesIncrementally(
+    List<CompletableFuture<List<AudioTrack>>> pages,
+    Function<List<AudioTrack>, ExtendedAudioPlaylist> playlistFactory,
+    PlaylistPageHandler handler
+  ) throws IOException {
+    var firstPage = await(pages.get(0));
+    handler.playlistLoaded(playlistFactory.apply(firstPage));
+
+    CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+    for (var page : pages.subList(1, pages.size())) {
+      chain =
+        chain.thenCombine(
+          page,
+          (unused, tracks) -> {
+            if (!tracks.isEmpty()) {
+              handler.tracksLoaded(tracks);
+            }
+            return null;
+          }
+        );
+    }
+    chain.whenComplete((unused, throwable) -> {
+      if (throwable == null) {
+        handler.loadCompleted();
+        return;
+      }
+      if (throwable instanceof CompletionException && throwable.getCause() != null) {
+        throwable = throwable.getCause();
+      }
+      log.error("Failed to load remaining playlist pages", throwable);
+      handler.loadFailed(throwable);
+    });
+  }
+
+  @FunctionalInterface
+  public interface IOSupplier<T> {
+    T get() throws IOException;
+  }
 }
@@ -0,0 +1,432 @@
+package com.github.topi314.lavasrc;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioPlaylist;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches parsed tracks and playlists across requests, keyed by source, type, id and market.
+ * Admission is frequency based (W-TinyLFU), so one off loads don't push out popular playlists, and the size is bounded by an estimate of the retained memory.
+ * Every item is handed out as a fresh copy, as tracks carry per player state.
+ * The track list of a copied playlist is owned by the caller and can be modified like an {@link ArrayList}, whether it was loaded or restored from a compacted entry.
+ */
+public class MetadataCache {
+
+  public static final long DEFAULT_MAXIMUM_WEIGHT = 64L * 1024 * 1024;
+  private static final int TRACK_OVERHEAD = 256;
+  private static final int PLAYLIST_OVERHEAD = 128;
+
+  private static volatile MetadataCache shared;
+
+  public static final int COMPACT_THRESHOLD = 50;
+
+  private final Map<Type, Long> ttls = new ConcurrentHashMap<>();
+  // values are tracks, playlists or compacted playlists
+  private final Cache<Key, Object> cache;
+  private final Map<Key, CompletableFuture<AudioItem>> loading = new ConcurrentHashMap<>();
+  private volatile boolean offHeap;
+
+  public MetadataCache() {
+    this(DEFAULT_MAXIMUM_WEIGHT);
+  }
+
+  public MetadataCache(long maximumWeight) {
+    for (var type : Type.values()) {
+      this.ttls.put(type, type.defaultTtl);
+    }
+    this.cache =
+      Caffeine
+        .newBuilder()
+        .maximumWeight(maximumWeight)
+        .weigher((Key key, Object item) -> weigh(item))
+        .expireAfter(
+          new Expiry<Key, Object>() {
+            @Override
+            public long expireAfterCreate(
+              Key key,
+              Object item,
+              long currentTime
+            ) {
+              return TimeUnit.MILLISECONDS.toNanos(getTtl(key.type));
+            }
+
+            @Override
+            public long expireAfterUpdate(
+              Key key,
+              Object item,
+              long currentTime,
+              long currentDuration
+            ) {
+              return TimeUnit.MILLISECONDS.toNanos(getTtl(key.type));
+            }
+
+            @Override
+            public long expireAfterRead(
+              Key key,
+              Object item,
+              long currentTime,
+              long currentDuration
+            ) {
+              return currentDuration;
+            }
+          }
+        )
+        .build();
+  }
+
+  /**
+   * The cache used by all source managers unless they are given their own.
+   */
+  public static MetadataCache getShared() {
+    if (shared == null) {
+      synchronized (MetadataCache.class) {
+        if (shared == null) {
+          shared = new MetadataCache();
+        }
+      }
+    }
+    return shared;
+  }
+
+  public void setTtl(Type type, long ttl, TimeUnit unit) {
+    this.ttls.put(type, unit.toMillis(ttl));
+  }
+
+  public long getTtl(Type type) {
+    return this.ttls.get(type);
+  }
+
+  /**
+   * Stores the string dictionary of compacted playlists in direct buffers outside the heap.
+   */
+  public void setOffHeap(boolean offHeap) {
+    this.offHeap = offHeap;
+  }
+
+  /**
+   * Returns a copy of the cached item, or loads and caches it. Only tracks and playlists are cached, anything else like {@link com.sedmelluq.discord.lavaplayer.track.AudioReference#NO_TRACK} is returned as is.
+   * Callers missing the same item at the same time share a single load.
+   */
+  public AudioItem get(
+    String source,
+    Type type,
+    String id,
+    @Nullable String market,
+    LavaSrcTools.IOSupplier<AudioItem> loader
+  ) throws IOException {
+    return this.get(source, type, id, market, loader, null);
+  }
+
+  /**
+   * Like {@link #get(String, Type, String, String, LavaSrcTools.IOSupplier)}, but large playlists are stored as a {@link CompactTrackList} and recreated through the track factory on every hit.
+   */
+  public AudioItem get(
+    String source,
+    Type type,
+    String id,
+    @Nullable String market,
+    LavaSrcTools.IOSupplier<AudioItem> loader,
+    @Nullable TrackFactory trackFactory
+  ) throws IOException {
+    var key = new Key(source, type, id, market);
+    var cached = this.cache.getIfPresent(key);
+    if (cached != null) {
+      var copy = copy(cached);
+      if (copy != null) {
+        return copy;
+      }
+      this.cache.invalidate(key);
+    }
+
+    // concurrent misses for the same key wait for the first load instead of running their own
+    var load = new CompletableFuture<AudioItem>();
+    var inFlight = this.loading.putIfAbsent(key, load);
+    if (inFlight != null) {
+      return copyIfCacheable(LavaSrcTools.await(inFlight));
+    }
+    try {
+      var item = loader.get();
+      // stored before the load is finished, so callers arriving in between hit the cache.
+      // the loaded item is shared by everyone waiting for it and is only handed out as copies, so it can be stored as is
+      this.store(key, item, trackFactory);
+      load.complete(item);
+      return copyIfCacheable(item);
+    } catch (IOException | RuntimeException e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.loading.remove(key, load);
+    }
+  }
+
+  @Nullable
+  public AudioItem getIfPresent(
+    String source,
+    Type type,
+    String id,
+    @Nullable String market
+  ) {
+    var cached = this.cache.getIfPresent(new Key(source, type, id, market));
+    return cached == null ? null : copy(cached);
+  }
+
+  public void put(
+    String source,
+    Type type,
+    String id,
+    @Nullable String market,
+    AudioItem item
+  ) {
+    this.put(source, type, id, market, item, null);
+  }
+
+  /**
+   * Stores a copy of the item, as the caller keeps using the given one. Like {@link #get}, large playlists are compacted when a track factory is given.
+   */
+  public void put(
+    String source,
+    Type type,
+    String id,
+    @Nullable String market,
+    AudioItem item,
+    @Nullable TrackFactory trackFactory
+  ) {
+    if (isCacheable(item)) {
+      this.store(new Key(source, type, id, market), copy(item), trackFactory);
+    }
+  }
+
+  public void invalidate(
+    String source,
+    Type type,
+    String id,
+    @Nullable String market
+  ) {
+    this.cache.invalidate(new Key(source, type, id, market));
+  }
+
+  public void invalidateAll() {
+    this.cache.invalidateAll();
+  }
+
+  public long estimatedSize() {
+    return this.cache.estimatedSize();
+  }
+
+  private static boolean isCacheable(AudioItem item) {
+    return item instanceof AudioTrack || item instanceof ExtendedAudioPlaylist;
+  }
+
+  private static AudioItem copyIfCacheable(AudioItem item) {
+    return isCacheable(item) ? copy(item) : item;
+  }
+
+  private boolean store(
+    Key key,
+    AudioItem item,
+    @Nullable TrackFactory trackFactory
+  ) {
+    if (getTtl(key.type) <= 0 || !isCacheable(item)) {
+      return false;
+    }
+    this.cache.put(key, this.compact(item, trackFactory));
+    return true;
+  }
+
+  private Object compact(AudioItem item, @Nullable TrackFactory trackFactory) {
+    if (
+      trackFactory == null ||
+      !(item instanceof ExtendedAudioPlaylist) ||
+      ((ExtendedAudioPlaylist) item).getTracks().size() < COMPACT_THRESHOLD
+    ) {
+      return item;
+    }
+    var playlist = (ExtendedAudioPlaylist) item;
+    var tracks = CompactTrackList.of(playlist.getTracks(), this.offHeap);
+    if (tracks == null) {
+      return item;
+    }
+    return new CompactPlaylist(playlist, tracks, trackFactory);
+  }
+
+  @Nullable
+  private static AudioItem copy(Object item) {
+    if (item instanceof AudioTrack) {
+      return ((AudioTrack) item).makeClone();
+    }
+    List<AudioTrack> tracks;
+    ExtendedAudioPlaylist playlist;
+    if (item instanceof CompactPlaylist) {
+      var compactPlaylist = (CompactPlaylist) item;
+      tracks = compactPlaylist.tracks.materialize(compactPlaylist.trackFactory);
+      if (tracks == null) {
+        return null;
+      }
+      playlist = compactPlaylist.playlist;
+    } else {
+      playlist = (ExtendedAudioPlaylist) item;
+      tracks = new ArrayList<>(playlist.getTracks().size());
+      for (var track : playlist.getTracks()) {
+        tracks.add(track.makeClone());
+      }
+    }
+    return new ExtendedAudioPlaylist(
+      playlist.getName(),
+      tracks,
+      playlist.getType(),
+      playlist.getUrl(),
+      playlist.getArtworkURL(),
+      playlist.getAuthor(),
+      playlist.getTotalTracks()
+    );
+  }
+
+  private static int weigh(Object item) {
+    if (item instanceof AudioTrack) {
+      return weigh((AudioTrack) item);
+    }
+    if (item instanceof CompactPlaylist) {
+      var compactPlaylist = (CompactPlaylist) item;
+      return (int) Math.min(
+        Integer.MAX_VALUE,
+        PLAYLIST_OVERHEAD + compactPlaylist.tracks.getRetainedSize()
+      );
+    }
+    var playlist = (AudioPlaylist) item;
+    long weight = PLAYLIST_OVERHEAD + length(playlist.getName());
+    for (var track : playlist.getTracks()) {
+      weight += weigh(track);
+    }
+    return (int) Math.min(Integer.MAX_VALUE, weight);
+  }
+
+  private static int weigh(AudioTrack track) {
+    AudioTrackInfo info = track.getInfo();
+    var weight =
+      TRACK_OVERHEAD +
+      length(info.title) +
+      length(info.author) +
+      length(info.identifier) +
+      length(info.uri) +
+      length(info.artworkUrl) +
+      length(info.isrc);
+    if (track instanceof ExtendedAudioTrack) {
+      var extendedTrack = (ExtendedAudioTrack) track;
+      weight +=
+        length(extendedTrack.getAlbumName()) +
+        length(extendedTrack.getAlbumUrl()) +
+        length(extendedTrack.getArtistUrl()) +
+        length(extendedTrack.getArtistArtworkUrl()) +
+        length(extendedTrack.getPreviewUrl());
+    }
+    return weight;
+  }
+
+  private static int length(@Nullable String value) {
+    // roughly the retained size of the string, without compact strings in mind
+    return value == null ? 0 : 40 + value.length() * 2;
+  }
+
+  public enum Type {
+    TRACK(TimeUnit.HOURS.toMillis(6)),
+    ALBUM(TimeUnit.HOURS.toMillis(6)),
+    PLAYLIST(TimeUnit.MINUTES.toMillis(10)),
+    // playlists keyed by a content version like a snapshot id never go stale
+    PLAYLIST_SNAPSHOT(TimeUnit.HOURS.toMillis(6)),
+    ARTIST(TimeUnit.HOURS.toMillis(1));
+
+    private final long defaultTtl;
+
+    Type(long defaultTtl) {
+      this.defaultTtl = defaultTtl;
+    }
+  }
+
+  @FunctionalInterface
+  public interface TrackFactory {
+    @Nullable
+    AudioTrack create(
+      AudioTrackInfo trackInfo,
+      ExtendedAudioSourceManager.ExtendedAudioTrackInfo extendedInfo
+    );
+  }
+
+  private static class CompactPlaylist {
+
+    // only the header fields are used, its track list is empty
+    private final ExtendedAudioPlaylist playlist;
+    private final CompactTrackList tracks;
+    private final TrackFactory trackFactory;
+
+    private CompactPlaylist(
+      ExtendedAudioPlaylist playlist,
+      CompactTrackList tracks,
+      TrackFactory trackFactory
+    ) {
+      this.playlist =
+        new ExtendedAudioPlaylist(
+          playlist.getName(),
+          List.of(),
+          playlist.getType(),
+          playlist.getUrl(),
+          playlist.getArtworkURL(),
+          playlist.getAuthor(),
+          playlist.getTotalTracks()
+        );
+      this.tracks = tracks;
+      this.trackFactory = trackFactory;
+    }
+  }
+
+  private static class Key {
+
+    private final String source;
+    private final Type type;
+    private final String id;
+
+    @Nullable
+    private final String market;
+
+    private Key(String source, Type type, String id, @Nullable String market) {
+      this.source = source;
+      this.type = type;
+      this.id = id;
+      this.market = market;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      var key = (Key) o;
+      return (
+        this.source.equals(key.source) &&
+        this.type == key.type &&
+        this.id.equals(key.id) &&
+        Objects.equals(this.market, key.market)
+      );
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.source, this.type, this.id, this.market);
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import java.util.List;
+
+/**
+ * Receives a playlist page by page while it is being loaded by an {@link IncrementalPlaylistLoader}.
+ */
+public interface PlaylistPageHandler {
+  /**
+   * Called once with the playlist metadata and its first page of tracks, before the remaining pages are fetched.
+   */
+  void playlistLoaded(ExtendedAudioPlaylist playlist);
+
+  /**
+   * Called for every further page of tracks, in playlist order.
+   */
+  void tracksLoaded(List<AudioTrack> tracks);
+
+  void loadCompleted();
+
+  void noMatches();
+
+  void loadFailed(Throwable throwable);
+}
@@ -0,0 +1,75 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
+import com.sedmelluq.discord.lavaplayer.tools.io.PersistentHttpStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import org.apache.http.HttpResponse;
+
+/**
+ * A {@link PersistentHttpStream} which reads its content through a {@link ReadAheadInputStream} when a read ahead size is set.
+ * The read ahead buffer is allocated on the first connect and reused for every reconnect and seek after it.
+ */
+public class ReadAheadHttpStream extends PersistentHttpStream {
+
+  private final int readAheadSize;
+  private ReadAheadInputStream readAhead;
+
+  public ReadAheadHttpStream(
+    HttpInterface httpInterface,
+    URI contentUrl,
+    Long contentLength,
+    int readAheadSize
+  ) {
+    super(httpInterface, contentUrl, contentLength);
+    this.readAheadSize = readAheadSize;
+  }
+
+  @Override
+  public InputStream createContentInputStream(HttpResponse response)
+    throws IOException {
+    var content = super.createContentInputStream(response);
+    if (this.readAheadSize <= 0) {
+      return content;
+    }
+    if (this.readAhead == null) {
+      this.readAhead = new ReadAheadInputStream(content, this.readAheadSize);
+    } else {
+      this.readAhead.setSource(content);
+    }
+    return this.readAhead;
+  }
+
+  /**
+   * Size of the read ahead buffer, 0 if reading ahead is disabled.
+   */
+  public int getBufferCapacity() {
+    return Math.max(0, this.readAheadSize);
+  }
+
+  /**
+   * Bytes currently buffered ahead of the decoder.
+   */
+  public int getBufferedBytes() {
+    var readAhead = this.readAhead;
+    return readAhead == null ? 0 : readAhead.getBufferedBytes();
+  }
+
+  /**
+   * Times the decoder found the buffer empty and had to wait for the network.
+   */
+  public long getUnderruns() {
+    var readAhead = this.readAhead;
+    return readAhead == null ? 0 : readAhead.getUnderruns();
+  }
+
+  @Override
+  public void close() throws IOException {
+    // stop the reader first, closing the response then unblocks it if it is waiting on the network
+    if (this.readAhead != null) {
+      this.readAhead.close();
+    }
+    super.close();
+  }
+}
@@ -0,0 +1,350 @@
+package com.github.topi314.lavasrc;
+
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads ahead of the consumer on a background thread into a bounded, direct ring buffer, so short network stalls don't reach the decoder.
+ * The buffer is kept for the lifetime of this stream and reused when it is pointed at a new source with {@link #setSource}, like on a reconnect or seek.
+ * Closing this stream or replacing its source only stops the background reader, the source streams are left to their owner, which is expected to close them as well.
+ * While all {@link #getMaxReaders()} background readers are busy, new sources are read directly on the consumer thread instead.
+ */
+public class ReadAheadInputStream extends InputStream {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    ReadAheadInputStream.class
+  );
+  private static final int CHUNK_SIZE = 8192;
+  public static final int DEFAULT_MAX_READERS = 256;
+  private static final ThreadPoolExecutor readers = new ThreadPoolExecutor(
+    0,
+    DEFAULT_MAX_READERS,
+    60,
+    TimeUnit.SECONDS,
+    new SynchronousQueue<>(),
+    new DaemonThreadFactory("lavasrc-read-ahead")
+  );
+
+  private static final AtomicInteger activeStreams = new AtomicInteger();
+  private static final AtomicLong totalBufferedBytes = new AtomicLong();
+  private static final LongAdder totalUnderruns = new LongAdder();
+
+  private final ByteBuffer buffer;
+  private final int capacity;
+  private InputStream in;
+  // incremented for every source, so a reader of a replaced source stops touching the buffer
+  private int generation;
+  // set while no background reader was available for the current source
+  private boolean direct;
+  private int readIndex;
+  private int size;
+  private boolean eof;
+  private boolean closed;
+  private IOException failure;
+  private long underruns;
+
+  public ReadAheadInputStream(InputStream in, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Read ahead capacity must be positive");
+    }
+    this.capacity = capacity;
+    this.buffer = ByteBuffer.allocateDirect(capacity);
+    this.setSource(in);
+  }
+
+  /**
+   * Sets how many streams are read ahead at most at the same time, each of them occupies a thread while it is.
+   */
+  public static void setMaxReaders(int maxReaders) {
+    readers.setMaximumPoolSize(maxReaders);
+  }
+
+  public static int getMaxReaders() {
+    return readers.getMaximumPoolSize();
+  }
+
+  /**
+   * Number of streams whose background reader is still running.
+   */
+  public static int getActiveStreams() {
+    return activeStreams.get();
+  }
+
+  /**
+   * Bytes buffered ahead across all streams.
+   */
+  public static long getTotalBufferedBytes() {
+    return totalBufferedBytes.get();
+  }
+
+  /**
+   * Times any consumer found its buffer empty and had to wait for the network.
+   */
+  public static long getTotalUnderruns() {
+    return totalUnderruns.sum();
+  }
+
+  public int getCapacity() {
+    return this.capacity;
+  }
+
+  public synchronized int getBufferedBytes() {
+    return this.size;
+  }
+
+  /**
+   * Times the consumer found the buffer empty and had to wait for the network, across all sources of this stream.
+   */
+  public synchronized long getUnderruns() {
+    return this.underruns;
+  }
+
+  /**
+   * Drops everything buffered from the previous source and starts reading ahead from the given one, reopening this stream if it was closed.
+   */
+  public void setSource(InputStream in) {
+    int generation;
+    synchronized (this) {
+      generation = ++this.generation;
+      this.in = in;
+      this.discard(this.size);
+      this.readIndex = 0;
+      this.eof = false;
+      this.closed = false;
+      this.failure = null;
+      this.direct = false;
+      // wakes the reader of the previous source, so it notices it was replaced
+      this.notifyAll();
+    }
+    try {
+      readers.execute(() -> this.fill(in, generation));
+    } catch (RejectedExecutionException e) {
+      log.debug("All read ahead threads are busy, reading directly");
+      synchronized (this) {
+        if (this.generation == generation) {
+          this.direct = true;
+        }
+      }
+    }
+  }
+
+  private boolean isCurrent(int generation) {
+    return !this.closed && this.generation == generation;
+  }
+
+  private void fill(InputStream in, int generation) {
+    activeStreams.incrementAndGet();
+    var chunk = new byte[Math.min(CHUNK_SIZE, this.capacity)];
+    try {
+      while (true) {
+        int space;
+        synchronized (this) {
+          while (this.isCurrent(generation) && this.size == this.capacity) {
+            this.wait();
+          }
+          if (!this.isCurrent(generation)) {
+            return;
+          }
+          space = this.capacity - this.size;
+        }
+
+        var read = in.read(chunk, 0, Math.min(space, chunk.length));
+
+        synchronized (this) {
+          if (!this.isCurrent(generation)) {
+            return;
+          }
+          if (read == -1) {
+            this.eof = true;
+            this.notifyAll();
+            return;
+          }
+          this.put(chunk, read);
+          this.notifyAll();
+        }
+      }
+    } catch (IOException e) {
+      this.fail(generation, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      // the consumer would otherwise wait for data which never arrives
+      this.fail(generation, new InterruptedIOException());
+    } catch (Exception e) {
+      log.error("Read ahead failed", e);
+      this.fail(generation, new IOException(e));
+    } finally {
+      activeStreams.decrementAndGet();
+    }
+  }
+
+  private synchronized void fail(int generation, IOException failure) {
+    if (this.isCurrent(generation)) {
+      this.failure = failure;
+    }
+    this.notifyAll();
+  }
+
+  @Override
+  public int read() throws IOException {
+    var directSource = this.getDirectSource();
+    if (directSource != null) {
+      return directSource.read();
+    }
+    synchronized (this) {
+      if (!this.awaitData()) {
+        return -1;
+      }
+      var value = this.buffer.get(this.readIndex) & 0xFF;
+      this.discard(1);
+      this.notifyAll();
+      return value;
+    }
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) {
+      return 0;
+    }
+    var directSource = this.getDirectSource();
+    if (directSource != null) {
+      return directSource.read(b, off, len);
+    }
+    synchronized (this) {
+      if (!this.awaitData()) {
+        return -1;
+      }
+      var length = Math.min(len, this.size);
+      this.get(b, off, length);
+      this.notifyAll();
+      return length;
+    }
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    var directSource = this.getDirectSource();
+    if (directSource != null) {
+      return directSource.skip(n);
+    }
+    synchronized (this) {
+      if (n <= 0 || !this.awaitData()) {
+        return 0;
+      }
+      var length = (int) Math.min(n, this.size);
+      this.discard(length);
+      this.notifyAll();
+      return length;
+    }
+  }
+
+  @Override
+  public int available() throws IOException {
+    var directSource = this.getDirectSource();
+    if (directSource != null) {
+      return directSource.available();
+    }
+    synchronized (this) {
+      return this.size;
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      this.discard(this.size);
+      this.notifyAll();
+    }
+  }
+
+  /**
+   * Returns the source if it is read on the consumer thread, the source is only read outside the lock so metrics stay readable meanwhile.
+   */
+  private synchronized InputStream getDirectSource() throws IOException {
+    if (!this.direct) {
+      return null;
+    }
+    if (this.closed) {
+      throw new IOException("Stream closed");
+    }
+    return this.in;
+  }
+
+  /**
+   * Waits until data is buffered, returning false at the end of the source.
+   */
+  private boolean awaitData() throws IOException {
+    if (this.size == 0 && !this.eof && this.failure == null && !this.closed) {
+      this.underruns++;
+      totalUnderruns.increment();
+      try {
+        while (
+          this.size == 0 && !this.eof && this.failure == null && !this.closed
+        ) {
+          this.wait();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+    if (this.closed) {
+      throw new IOException("Stream closed");
+    }
+    if (this.size > 0) {
+      return true;
+    }
+    if (this.failure != null) {
+      throw this.failure;
+    }
+    return false;
+  }
+
+  private void put(byte[] src, int length) {
+    var writeIndex = (this.readIndex + this.size) % this.capacity;
+    var first = Math.min(length, this.capacity - writeIndex);
+    this.buffer.position(writeIndex);
+    this.buffer.put(src, 0, first);
+    if (first < length) {
+      this.buffer.position(0);
+      this.buffer.put(src, first, length - first);
+    }
+    this.size += length;
+    totalBufferedBytes.addAndGet(length);
+  }
+
+  private void get(byte[] dst, int off, int length) {
+    var first = Math.min(length, this.capacity - this.readIndex);
+    this.buffer.position(this.readIndex);
+    this.buffer.get(dst, off, first);
+    if (first < length) {
+      this.buffer.position(0);
+      this.buffer.get(dst, off + first, length - first);
+    }
+    this.discard(length);
+  }
+
+  private void discard(int length) {
+    this.readIndex = (this.readIndex + length) % this.capacity;
+    this.size -= length;
+    totalBufferedBytes.addAndGet(-length);
+  }
+}
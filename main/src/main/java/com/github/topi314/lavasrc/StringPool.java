@@ -0,0 +1,51 @@
+package com.github.topi314.lavasrc;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A bounded, weakly referenced intern pool for track metadata like album names, artist urls and artwork urls, which repeat across the tracks of a load and across loads.
+ * Entries disappear once no track references them anymore, and a stripe which grows past its bound is simply cleared.
+ */
+public final class StringPool {
+
+  public static final int MAX_SIZE = 65_536;
+  private static final int STRIPES = 16;
+  private static final int MAX_STRIPE_SIZE = MAX_SIZE / STRIPES;
+
+  @SuppressWarnings("unchecked")
+  private static final Map<String, WeakReference<String>>[] stripes = new Map[STRIPES];
+
+  static {
+    for (var i = 0; i < STRIPES; i++) {
+      stripes[i] = new WeakHashMap<>();
+    }
+  }
+
+  private StringPool() {}
+
+  /**
+   * Returns the pooled instance equal to the given string, adding it to the pool if there is none.
+   */
+  @Nullable
+  public static String intern(@Nullable String value) {
+    if (value == null) {
+      return null;
+    }
+    var stripe = stripes[(value.hashCode() & 0x7fffffff) % STRIPES];
+    synchronized (stripe) {
+      var reference = stripe.get(value);
+      var pooled = reference == null ? null : reference.get();
+      if (pooled != null) {
+        return pooled;
+      }
+      if (stripe.size() >= MAX_STRIPE_SIZE) {
+        stripe.clear();
+      }
+      stripe.put(value, new WeakReference<>(value));
+      return value;
+    }
+  }
+}
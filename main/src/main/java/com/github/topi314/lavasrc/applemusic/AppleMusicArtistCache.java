@@ -0,0 +1,146 @@
+package com.github.topi314.lavasrc.applemusic;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.topi314.lavasrc.LavaSrcTools;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches artist cover urls, so enriching a large playlist only requests the artists which were not seen recently.
+ * Uncached artists are requested in chunks of the maximum batch size the catalog endpoint accepts, concurrently on the source's loader pool.
+ * Concurrent lookups of the same artist share one request, artists missing from the response are not cached.
+ */
+public class AppleMusicArtistCache {
+
+  public static final int MAX_BATCH_SIZE = 25;
+  public static final long DEFAULT_TTL_MS = TimeUnit.HOURS.toMillis(1);
+  public static final int DEFAULT_MAX_SIZE = 10_000;
+
+  private final AppleMusicSourceManager sourceManager;
+  private final Executor executor;
+  // artists without artwork are cached as empty, so they are not requested again
+  private final AsyncLoadingCache<String, Optional<String>> covers;
+
+  public AppleMusicArtistCache(
+    AppleMusicSourceManager sourceManager,
+    Executor executor
+  ) {
+    this(sourceManager, executor, DEFAULT_TTL_MS, DEFAULT_MAX_SIZE);
+  }
+
+  public AppleMusicArtistCache(
+    AppleMusicSourceManager sourceManager,
+    Executor executor,
+    long ttl,
+    int maxSize
+  ) {
+    this.sourceManager = sourceManager;
+    this.executor = executor;
+    this.covers =
+      Caffeine
+        .newBuilder()
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .maximumSize(maxSize)
+        // load on the thread asking for the covers, it may already be one of the loader threads the batches run on
+        .executor(Runnable::run)
+        .buildAsync(new CoverLoader());
+  }
+
+  @Nullable
+  public String getCover(String id) throws IOException {
+    if (id == null) {
+      return null;
+    }
+    var cover = LavaSrcTools.await(this.covers.get(id));
+    return cover == null ? null : cover.orElse(null);
+  }
+
+  /**
+   * Returns the cover urls by artist id. Artists without artwork or missing from the catalog are not contained.
+   */
+  public Map<String, String> getCovers(Collection<String> ids)
+    throws IOException {
+    var validIds = new LinkedHashSet<String>(ids.size());
+    for (var id : ids) {
+      if (id != null) {
+        validIds.add(id);
+      }
+    }
+    var result = new HashMap<String, String>(validIds.size());
+    if (validIds.isEmpty()) {
+      return result;
+    }
+    LavaSrcTools
+      .await(this.covers.getAll(validIds))
+      .forEach((id, cover) -> cover.ifPresent(url -> result.put(id, url)));
+    return result;
+  }
+
+  private Map<String, Optional<String>> fetchCovers(List<String> ids)
+    throws IOException {
+    var json =
+      this.sourceManager.getJson(
+          AppleMusicSourceManager.API_BASE +
+          "catalog/" +
+          this.sourceManager.getCountryCode() +
+          "/artists?ids=" +
+          String.join(",", ids)
+        );
+    var output = new HashMap<String, Optional<String>>(ids.size());
+    if (json == null) {
+      return output;
+    }
+    // the response is not guaranteed to keep the requested order, so map by id
+    for (var artist : json.get("data").values()) {
+      output.put(
+        artist.get("id").text(),
+        Optional.ofNullable(
+          AppleMusicSourceManager.parseArtworkUrl(
+            artist.get("attributes").get("artwork")
+          )
+        )
+      );
+    }
+    return output;
+  }
+
+  private class CoverLoader implements CacheLoader<String, Optional<String>> {
+
+    @Nullable
+    @Override
+    public Optional<String> load(String id) throws IOException {
+      return fetchCovers(List.of(id)).get(id);
+    }
+
+    @Override
+    public Map<String, Optional<String>> loadAll(Set<? extends String> ids)
+      throws IOException {
+      var missingIds = new ArrayList<String>(ids);
+      var batches = new ArrayList<LavaSrcTools.IOSupplier<Map<String, Optional<String>>>>();
+      for (var i = 0; i < missingIds.size(); i += MAX_BATCH_SIZE) {
+        var batch = missingIds.subList(
+          i,
+          Math.min(i + MAX_BATCH_SIZE, missingIds.size())
+        );
+        batches.add(() -> fetchCovers(batch));
+      }
+      var result = new HashMap<String, Optional<String>>(missingIds.size());
+      for (var batch : LavaSrcTools.invokeAll(batches, executor)) {
+        result.putAll(batch);
+      }
+      return result;
+    }
+  }
+}
@@ -51,6 +51,12 @@ public class AppleMusicAudioTrack extends MirroringAudioTrack {
   protected AudioTrack makeShallowClone() {
     return new AppleMusicAudioTrack(
       this.trackInfo,
+      this.albumName,
+      this.albumUrl,
+      this.artistUrl,
+      this.artistArtworkUrl,
+      this.previewUrl,
+      this.isPreview,
       (AppleMusicSourceManager) this.sourceManager
     );
   }
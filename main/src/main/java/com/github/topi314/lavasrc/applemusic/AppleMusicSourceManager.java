@@ -7,15 +7,20 @@ import com.github.topi314.lavasearch.result.AudioSearchResult;
 import com.github.topi314.lavasearch.result.AudioText;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioText;
+import com.github.topi314.lavasrc.CredentialPool;
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
+import com.github.topi314.lavasrc.IncrementalPlaylistLoader;
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.MetadataCache;
+import com.github.topi314.lavasrc.PlaylistPageHandler;
+import com.github.topi314.lavasrc.StringPool;
 import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
 import com.github.topi314.lavasrc.mirror.MirroringAudioSourceManager;
 import com.github.topi314.lavasrc.mirror.MirroringAudioTrackResolver;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.track.*;
-import java.io.DataInput;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URLDecoder;
@@ -29,7 +34,10 @@ import java.security.spec.PKCS8EncodedKeySpec;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -41,7 +49,7 @@ import org.jetbrains.annotations.Nullable;
 import org.jsoup.Jsoup;
 public class AppleMusicSourceManager
   extends MirroringAudioSourceManager
-  implements AudioSearchManager {
+  implements AudioSearchManager, IncrementalPlaylistLoader {
 
   public static final Pattern URL_PATTERN = Pattern.compile(
           "(https?://)?(www\\.)?music\\.apple\\.com/((?<countrycode>[a-zA-Z]{2})/)?(?<type>album|playlist|artist|song|music-video)(/[a-zA-Z\\p{L}\\d-]+)?/(?<identifier>[a-zA-Z\\d.-]+)(\\?i=(?<identifier2>\\d+))?"
@@ -69,9 +77,14 @@ public class AppleMusicSourceManager
   private final String countryCode;
   private int playlistPageLimit;
   private int albumPageLimit;
-  private String token;
-  private String origin;
-  private Instant tokenExpire;
+  private final CredentialPool<AppleMusicToken> tokens;
+  private final ExecutorService loaderExecutor = LavaSrcTools.createLoaderExecutor(
+    "applemusic"
+  );
+  private final AppleMusicArtistCache artistCache = new AppleMusicArtistCache(
+    this,
+    this.loaderExecutor
+  );
 
   public AppleMusicSourceManager(
     String[] providers,
@@ -106,17 +119,52 @@ public class AppleMusicSourceManager
     String countryCode,
     Function<Void, AudioPlayerManager> audioPlayerManager,
     MirroringAudioTrackResolver mirroringAudioTrackResolver
+  ) {
+    this(
+      Collections.singletonList(mediaAPIToken),
+      countryCode,
+      audioPlayerManager,
+      mirroringAudioTrackResolver
+    );
+  }
+
+  public AppleMusicSourceManager(
+    String[] providers,
+    List<String> mediaAPITokens,
+    String countryCode,
+    Function<Void, AudioPlayerManager> audioPlayerManager
+  ) {
+    this(
+      mediaAPITokens,
+      countryCode,
+      audioPlayerManager,
+      new DefaultMirroringAudioTrackResolver(providers)
+    );
+  }
+
+  public AppleMusicSourceManager(
+    List<String> mediaAPITokens,
+    String countryCode,
+    Function<Void, AudioPlayerManager> audioPlayerManager,
+    MirroringAudioTrackResolver mirroringAudioTrackResolver
   ) {
     super(audioPlayerManager, mirroringAudioTrackResolver);
-    this.token = mediaAPIToken;
+    var tokens = new ArrayList<AppleMusicToken>();
     try {
-      this.parseTokenData();
+      for (var mediaAPIToken : mediaAPITokens) {
+        tokens.add(new AppleMusicToken(mediaAPIToken));
+      }
+      // without any configured tokens a single one is scraped from the web player
+      if (tokens.isEmpty()) {
+        tokens.add(new AppleMusicToken(null));
+      }
     } catch (IOException e) {
       throw new IllegalArgumentException(
         "Cannot parse token for expire date and origin",
         e
       );
     }
+    this.tokens = new CredentialPool<>(tokens);
     if (countryCode == null || countryCode.isEmpty()) {
       this.countryCode = "us";
     } else {
@@ -139,9 +187,10 @@ public class AppleMusicSourceManager
   }
 
   @Override
-  public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input)
-    throws IOException {
-    var extendedAudioTrackInfo = super.decodeTrack(input);
+  protected AudioTrack createTrack(
+    AudioTrackInfo trackInfo,
+    ExtendedAudioTrackInfo extendedAudioTrackInfo
+  ) {
     return new AppleMusicAudioTrack(
       trackInfo,
       extendedAudioTrackInfo.albumName,
@@ -202,25 +251,36 @@ public class AppleMusicSourceManager
 
       var countryCode = matcher.group("countrycode");
       var id = matcher.group("identifier");
-      var route = matcher.group("type");
       switch (matcher.group("type")) {
         case "song":
-          route = "songs";
-          return this.getSong(id, countryCode, route, preview);
+          return this.loadSong(id, countryCode, "songs", preview);
         case "album":
           var id2 = matcher.group("identifier2");
           if (id2 == null || id2.isEmpty()) {
-            return this.getAlbum(id, countryCode, preview);
+            return this.loadCached(
+                MetadataCache.Type.ALBUM,
+                this.getCacheId(id, preview),
+                countryCode,
+                () -> this.getAlbum(id, countryCode, preview)
+              );
           }
-          route = "songs"; //ghetto ahhh code 
-          return this.getSong(id2, countryCode, route, preview);
+          return this.loadSong(id2, countryCode, "songs", preview); //ghetto ahhh code 
         case "music-video":
-          route = "music-videos"; //ghetto ahhh code 
-          return this.getSong(id, countryCode, route, preview);
+          return this.loadSong(id, countryCode, "music-videos", preview); //ghetto ahhh code 
         case "playlist":
-          return this.getPlaylist(id, countryCode, preview);
+          return this.loadCached(
+              MetadataCache.Type.PLAYLIST,
+              this.getCacheId(id, preview),
+              countryCode,
+              () -> this.getPlaylist(id, countryCode, preview)
+            );
         case "artist":
-          return this.getArtist(id, countryCode, preview);
+          return this.loadCached(
+              MetadataCache.Type.ARTIST,
+              this.getCacheId(id, preview),
+              countryCode,
+              () -> this.getArtist(id, countryCode, preview)
+            );
       }
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -228,18 +288,25 @@ public class AppleMusicSourceManager
     return null;
   }
 
-  public void parseTokenData() throws IOException {
-    if (this.token == null || this.token.isEmpty()) {
-      return;
-    }
-    var json = JsonBrowser.parse(
-      new String(Base64.getDecoder().decode(this.token.split("\\.")[1]))
-    );
-    this.tokenExpire = Instant.ofEpochSecond(json.get("exp").asLong(0));
-    this.origin = json.get("root_https_origin").index(0).text();
+  private AudioItem loadSong(
+    String id,
+    String countryCode,
+    String route,
+    boolean preview
+  ) throws IOException {
+    return this.loadCached(
+        MetadataCache.Type.TRACK,
+        this.getCacheId(route + "/" + id, preview),
+        countryCode,
+        () -> this.getSong(id, countryCode, route, preview)
+      );
+  }
+
+  private String getCacheId(String id, boolean preview) {
+    return preview ? PREVIEW_PREFIX + id : id;
   }
 
-  public void requestToken() throws IOException {
+  public void requestToken(AppleMusicToken token) throws IOException {
         var request = new HttpGet("https://music.apple.com");
         try (var response = this.httpInterfaceManager.getInterface().execute(request)) {
             var document = Jsoup.parse(response.getEntity().getContent(), null, "");
@@ -255,8 +322,7 @@ public class AppleMusicSourceManager
                     var tokenScript = IOUtils.toString(indexResponse.getEntity().getContent(), StandardCharsets.UTF_8);
                     var tokenMatcher = TOKEN_PATTERN.matcher(tokenScript);
                     if (tokenMatcher.find()) {
-                        this.token = tokenMatcher.group();
-                        this.parseTokenData();
+                        token.setToken(tokenMatcher.group());
                         return;
                     }
                 }
@@ -266,14 +332,16 @@ public class AppleMusicSourceManager
     }
 
   public String getToken() throws IOException {
-    if (
-      this.token == null ||
-      this.tokenExpire == null ||
-      this.tokenExpire.isBefore(Instant.now())
-    ) {
-      this.requestToken();
+    return this.getToken(this.tokens.peek());
+  }
+
+  public String getToken(AppleMusicToken token) throws IOException {
+    synchronized (token) {
+      if (token.isExpired()) {
+        this.requestToken(token);
+      }
+      return token.getToken();
     }
-    return this.token;
   }
 
   public AudioSearchResult getSearchSuggestions(
@@ -433,15 +501,18 @@ public class AppleMusicSourceManager
   }
 
   public JsonBrowser getJson(String uri) throws IOException {
-    var request = new HttpGet(uri);
-    request.addHeader("Authorization", "Bearer " + this.getToken());
-    if (this.origin != null && !this.origin.isEmpty()) {
-      request.addHeader("Origin", "https://" + this.origin);
-    }
-    return LavaSrcTools.fetchResponseAsJson(
-      this.httpInterfaceManager.getInterface(),
-      request
-    );
+    return this.tokens.fetchResponseAsJson(
+        this.httpInterfaceManager.getInterface(),
+        token -> {
+          var request = new HttpGet(uri);
+          request.addHeader("Authorization", "Bearer " + this.getToken(token));
+          var origin = token.getOrigin();
+          if (origin != null && !origin.isEmpty()) {
+            request.addHeader("Origin", "https://" + origin);
+          }
+          return request;
+        }
+      );
   }
 
   public Map<String, String> getArtistCover(List<String> ids)
@@ -449,21 +520,11 @@ public class AppleMusicSourceManager
     if (ids.isEmpty()) {
       return Map.of();
     }
-    var json = getJson(
-      API_BASE +
-      "catalog/" +
-      countryCode +
-      "/artists?ids=" +
-      String.join(",", ids)
-    );
-    var output = new HashMap<String, String>(ids.size());
-    for (var i = 0; i < ids.size(); i++) {
-      var artist = json.get("data").index(i);
-      var artwork = artist.get("attributes").get("artwork");
-      output.put(artist.get("id").text(), parseArtworkUrl(artwork));
-    }
+    return this.artistCache.getCovers(ids);
+  }
 
-    return output;
+  public String getCountryCode() {
+    return this.countryCode;
   }
 
   public AudioItem getSearch(String query, boolean preview) throws IOException {
@@ -492,50 +553,119 @@ public class AppleMusicSourceManager
     );
   }
 
+  @Override
+  public boolean loadPlaylist(String identifier, PlaylistPageHandler handler) {
+    var preview = identifier.startsWith(PREVIEW_PREFIX);
+    if (preview) {
+      identifier = identifier.substring(PREVIEW_PREFIX.length());
+    }
+    var matcher = URL_PATTERN.matcher(identifier);
+    if (!matcher.find()) {
+      return false;
+    }
+    var countryCode = matcher.group("countrycode");
+    var id = matcher.group("identifier");
+    var id2 = matcher.group("identifier2");
+    var type = matcher.group("type");
+    var album = type.equals("album") && (id2 == null || id2.isEmpty());
+    if (!album && !type.equals("playlist")) {
+      return false;
+    }
+
+    try {
+      var pageUri = album
+        ? this.getAlbumPageUri(id, countryCode)
+        : this.getPlaylistPageUri(id, countryCode);
+      // the first page is requested together with the album or playlist itself
+      var firstPage = this.getTrackPage(pageUri.apply(0), preview);
+      var json = album
+        ? this.getAlbumJson(id, countryCode)
+        : this.getPlaylistJson(id, countryCode);
+      if (json == null) {
+        firstPage.cancel(false);
+        handler.noMatches();
+        return true;
+      }
+      var pages =
+        this.getPages(
+            pageUri,
+            firstPage,
+            this.parseTrackCount(json),
+            album ? this.albumPageLimit : this.playlistPageLimit,
+            preview
+          );
+      LavaSrcTools.loadPagesIncrementally(
+        pages,
+        tracks ->
+          album ? this.createAlbum(json, tracks) : this.createPlaylist(json, tracks),
+        handler
+      );
+    } catch (Exception e) {
+      handler.loadFailed(e);
+    }
+    return true;
+  }
+
   public AudioItem getAlbum(String id, String countryCode, boolean preview)
     throws IOException {
-    var json =
-      this.getJson(
-          API_BASE +
-          "catalog/" +
-          countryCode +
-          "/albums/" +
-          id +
-          "?extend=artistUrl"
-        );
+    var pageUri = this.getAlbumPageUri(id, countryCode);
+    // the first page is requested together with the album itself
+    var firstPage = this.getTrackPage(pageUri.apply(0), preview);
+    var json = this.getAlbumJson(id, countryCode);
     if (json == null) {
+      firstPage.cancel(false);
       return AudioReference.NO_TRACK;
     }
 
-    var tracksRaw = JsonBrowser.newList();
-    JsonBrowser page;
-    var offset = 0;
-    var pages = 0;
-    do {
-      page =
-        this.getJson(
-            API_BASE +
-            "catalog/" +
-            countryCode +
-            "/albums/" +
-            id +
-            "/tracks?limit=" +
-            MAX_PAGE_ITEMS +
-            "&offset=" +
-            offset
-          );
-      offset += MAX_PAGE_ITEMS;
-
-      page.get("data").values().forEach(tracksRaw::add);
-    } while (page.get("next").text() != null && ++pages < albumPageLimit);
-
-    var tracks = parseTrackList(tracksRaw, preview);
+    var tracks = LavaSrcTools.flatten(
+      LavaSrcTools.awaitAll(
+        this.getPages(
+            pageUri,
+            firstPage,
+            this.parseTrackCount(json),
+            this.albumPageLimit,
+            preview
+          )
+      )
+    );
     if (tracks.isEmpty()) {
       return AudioReference.NO_TRACK;
     }
 
+    return this.createAlbum(json, tracks);
+  }
+
+  private JsonBrowser getAlbumJson(String id, String countryCode)
+    throws IOException {
+    return this.getJson(
+        API_BASE +
+        "catalog/" +
+        countryCode +
+        "/albums/" +
+        id +
+        "?extend=artistUrl"
+      );
+  }
+
+  private IntFunction<String> getAlbumPageUri(String id, String countryCode) {
+    return offset ->
+      API_BASE +
+      "catalog/" +
+      countryCode +
+      "/albums/" +
+      id +
+      "/tracks?limit=" +
+      MAX_PAGE_ITEMS +
+      "&offset=" +
+      offset;
+  }
+
+  private ExtendedAudioPlaylist createAlbum(
+    JsonBrowser json,
+    List<AudioTrack> tracks
+  ) {
     var artworkUrl =
-      this.parseArtworkUrl(
+      parseArtworkUrl(
           json.get("data").index(0).get("attributes").get("artwork")
         );
     var author = json
@@ -551,53 +681,66 @@ public class AppleMusicSourceManager
       json.get("data").index(0).get("attributes").get("url").text(),
       artworkUrl,
       author,
-      (int) json
-        .get("data")
-        .index(0)
-        .get("attributes")
-        .get("trackCount")
-        .asLong(0)
+      this.parseTrackCount(json)
     );
   }
 
   public AudioItem getPlaylist(String id, String countryCode, boolean preview)
     throws IOException {
-    var json =
-      this.getJson(API_BASE + "catalog/" + countryCode + "/playlists/" + id);
+    var pageUri = this.getPlaylistPageUri(id, countryCode);
+    // the first page is requested together with the playlist itself
+    var firstPage = this.getTrackPage(pageUri.apply(0), preview);
+    var json = this.getPlaylistJson(id, countryCode);
     if (json == null) {
+      firstPage.cancel(false);
       return AudioReference.NO_TRACK;
     }
 
-    var tracksRaw = JsonBrowser.newList();
-    JsonBrowser page;
-    var offset = 0;
-    var pages = 0;
-    do {
-      page =
-        this.getJson(
-            API_BASE +
-            "catalog/" +
-            countryCode +
-            "/playlists/" +
-            id +
-            "/tracks?limit=" +
-            MAX_PAGE_ITEMS +
-            "&offset=" +
-            offset +
-            "&extend=artistUrl"
-          );
-      offset += MAX_PAGE_ITEMS;
-
-      page.get("data").values().forEach(tracksRaw::add);
-    } while (page.get("next").text() != null && ++pages < playlistPageLimit);
-
-    var tracks = parseTrackList(tracksRaw, preview);
+    var tracks = LavaSrcTools.flatten(
+      LavaSrcTools.awaitAll(
+        this.getPages(
+            pageUri,
+            firstPage,
+            this.parseTrackCount(json),
+            this.playlistPageLimit,
+            preview
+          )
+      )
+    );
     if (tracks.isEmpty()) {
       return AudioReference.NO_TRACK;
     }
 
+    return this.createPlaylist(json, tracks);
+  }
+
+  private JsonBrowser getPlaylistJson(String id, String countryCode)
+    throws IOException {
+    return this.getJson(
+        API_BASE + "catalog/" + countryCode + "/playlists/" + id
+      );
+  }
+
+  private IntFunction<String> getPlaylistPageUri(String id, String countryCode) {
+    return offset ->
+      API_BASE +
+      "catalog/" +
+      countryCode +
+      "/playlists/" +
+      id +
+      "/tracks?limit=" +
+      MAX_PAGE_ITEMS +
+      "&offset=" +
+      offset +
+      "&extend=artistUrl";
+  }
+
+  private ExtendedAudioPlaylist createPlaylist(
+    JsonBrowser json,
+    List<AudioTrack> tracks
+  ) {
     var artworkUrl =
-      this.parseArtworkUrl(
+      parseArtworkUrl(
           json.get("data").index(0).get("attributes").get("artwork")
         );
     var author = json
@@ -613,15 +756,19 @@ public class AppleMusicSourceManager
       json.get("data").index(0).get("attributes").get("url").text(),
       artworkUrl,
       author,
-      (int) json
-        .get("data")
-        .index(0)
-        .get("attributes")
-        .get("trackCount")
-        .asLong(0)
+      this.parseTrackCount(json)
     );
   }
 
+  private int parseTrackCount(JsonBrowser json) {
+    return (int) json
+      .get("data")
+      .index(0)
+      .get("attributes")
+      .get("trackCount")
+      .asLong(0);
+  }
+
   public AudioItem getArtist(String id, String countryCode, boolean preview)
     throws IOException {
     var json =
@@ -648,7 +795,7 @@ public class AppleMusicSourceManager
       .text();
 
     var artworkUrl =
-      this.parseArtworkUrl(
+      parseArtworkUrl(
           jsonArtist.get("data").index(0).get("attributes").get("artwork")
         );
     var artistArtwork = new HashMap<String, String>();
@@ -688,8 +835,7 @@ public class AppleMusicSourceManager
     var artistId = this.parseArtistId(json);
     String artistArtwork = null;
     if (artistId != null) {
-      artistArtwork =
-        getArtistCover(List.of(artistId)).values().iterator().next();
+      artistArtwork = this.artistCache.getCover(artistId);
     }
     return parseTrack(json.get("data").index(0), preview, artistArtwork);
   }
@@ -711,11 +857,95 @@ public class AppleMusicSourceManager
     return tracks;
   }
 
-  private List<AudioTrack> parseTrackList(JsonBrowser json, boolean preview)
-    throws IOException {
-    var jsonData = JsonBrowser.newMap();
-    jsonData.put("data", json);
-    return parseTracks(jsonData, preview);
+  /**
+   * Fetches a page of tracks and resolves the artist covers of that page right away, so cover lookups overlap with the remaining page fetches.
+   */
+  private CompletableFuture<TrackPage> getTrackPage(String uri, boolean preview) {
+    return LavaSrcTools.supplyAsync(
+      () -> {
+        var page = this.getJson(uri);
+        if (page == null) {
+          return new TrackPage(List.of(), false);
+        }
+        return new TrackPage(
+          this.parseTracks(page, preview),
+          page.get("next").text() != null
+        );
+      },
+      this.loaderExecutor
+    );
+  }
+
+  private List<CompletableFuture<List<AudioTrack>>> getPages(
+    IntFunction<String> pageUri,
+    CompletableFuture<TrackPage> firstPage,
+    int total,
+    int pageLimit,
+    boolean preview
+  ) {
+    var pageCount = Math.max(1, pageLimit);
+    var pages = new ArrayList<CompletableFuture<List<AudioTrack>>>();
+    pages.add(firstPage.thenApply(page -> page.tracks));
+    if (total > 0) {
+      pageCount =
+        Math.min(pageCount, (total + MAX_PAGE_ITEMS - 1) / MAX_PAGE_ITEMS);
+      for (var i = 1; i < pageCount; i++) {
+        pages.add(
+          this.getTrackPage(pageUri.apply(i * MAX_PAGE_ITEMS), preview)
+            .thenApply(page -> page.tracks)
+        );
+      }
+      return pages;
+    }
+
+    // without a track count, keep requesting waves of concurrent pages until one of them runs out
+    var maxPages = pageCount;
+    pages.add(
+      firstPage.thenCompose(page -> {
+        if (!page.hasNext) {
+          return CompletableFuture.completedFuture(List.of());
+        }
+        return this.getTrackWaves(pageUri, 1, maxPages, preview);
+      })
+    );
+    return pages;
+  }
+
+  private CompletableFuture<List<AudioTrack>> getTrackWaves(
+    IntFunction<String> pageUri,
+    int next,
+    int pageCount,
+    boolean preview
+  ) {
+    var wave = new ArrayList<CompletableFuture<TrackPage>>();
+    for (
+      var i = next;
+      i < pageCount && wave.size() < LavaSrcTools.LOADER_THREADS;
+      i++
+    ) {
+      wave.add(this.getTrackPage(pageUri.apply(i * MAX_PAGE_ITEMS), preview));
+    }
+    if (wave.isEmpty()) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+    var following = next + wave.size();
+    return CompletableFuture
+      .allOf(wave.toArray(new CompletableFuture[0]))
+      .thenCompose(unused -> {
+        List<AudioTrack> tracks = new ArrayList<>();
+        for (var future : wave) {
+          var page = future.join();
+          tracks.addAll(page.tracks);
+          if (!page.hasNext) {
+            return CompletableFuture.completedFuture(tracks);
+          }
+        }
+        return this.getTrackWaves(pageUri, following, pageCount, preview)
+          .thenApply(rest -> {
+            tracks.addAll(rest);
+            return tracks;
+          });
+      });
   }
 
   private List<AudioTrack> parseTracks(JsonBrowser json, boolean preview)
@@ -753,27 +983,27 @@ public class AppleMusicSourceManager
     return new AppleMusicAudioTrack(
       new AudioTrackInfo(
         attributes.get("name").text(),
-        attributes.get("artistName").text(),
+        StringPool.intern(attributes.get("artistName").text()),
         preview ? PREVIEW_LENGTH : attributes.get("durationInMillis").asLong(0),
         json.get("id").text(),
         false,
         trackUrl,
-        this.parseArtworkUrl(attributes.get("artwork")),
+        StringPool.intern(parseArtworkUrl(attributes.get("artwork"))),
         attributes.get("isrc").text()
       ),
-      attributes.get("albumName").isNull() ? null : attributes.get("albumName").text(),
+      StringPool.intern(attributes.get("albumName").text()),
       // Apple doesn't give us the album url, however the track url is
       // /albums/{albumId}?i={trackId}, so if we cut off that parameter it's fine
-            paramIndex == -1 ? null : trackUrl.substring(0, paramIndex),
-      artistUrl,
-      artistArtwork,
+            paramIndex == -1 ? null : StringPool.intern(trackUrl.substring(0, paramIndex)),
+      StringPool.intern(artistUrl),
+      StringPool.intern(artistArtwork),
       attributes.get("previews").index(0).get("hlsUrl").text(),
       preview,
       this
     );
   }
 
-  private String parseArtworkUrl(JsonBrowser json) {
+  static String parseArtworkUrl(JsonBrowser json) {
     var text = json.get("url").text();
     if (text == null) {
       return null;
@@ -804,6 +1034,23 @@ public class AppleMusicSourceManager
     return url.substring(url.lastIndexOf('/') + 1);
   }
 
+  @Override
+  public void shutdown() {
+    ExecutorTools.shutdownExecutor(this.loaderExecutor, "apple music loader");
+    super.shutdown();
+  }
+
+  private static class TrackPage {
+
+    private final List<AudioTrack> tracks;
+    private final boolean hasNext;
+
+    private TrackPage(List<AudioTrack> tracks, boolean hasNext) {
+      this.tracks = tracks;
+      this.hasNext = hasNext;
+    }
+  }
+
   public static AppleMusicSourceManager fromMusicKitKey( // never used lmao
     String musicKitKey,
     String keyId,
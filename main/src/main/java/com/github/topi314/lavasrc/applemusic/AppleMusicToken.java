@@ -0,0 +1,55 @@
+package com.github.topi314.lavasrc.applemusic;
+
+import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Base64;
+import org.jetbrains.annotations.Nullable;
+
+public class AppleMusicToken {
+
+  @Nullable
+  private String token;
+
+  @Nullable
+  private String origin;
+
+  @Nullable
+  private Instant tokenExpire;
+
+  public AppleMusicToken(@Nullable String token) throws IOException {
+    this.setToken(token);
+  }
+
+  @Nullable
+  public String getToken() {
+    return this.token;
+  }
+
+  @Nullable
+  public String getOrigin() {
+    return this.origin;
+  }
+
+  public boolean isExpired() {
+    return (
+      this.token == null ||
+      this.tokenExpire == null ||
+      this.tokenExpire.isBefore(Instant.now())
+    );
+  }
+
+  public void setToken(@Nullable String token) throws IOException {
+    this.token = token;
+    this.origin = null;
+    this.tokenExpire = null;
+    if (token == null || token.isEmpty()) {
+      return;
+    }
+    var json = JsonBrowser.parse(
+      new String(Base64.getDecoder().decode(token.split("\\.")[1]))
+    );
+    this.tokenExpire = Instant.ofEpochSecond(json.get("exp").asLong(0));
+    this.origin = json.get("root_https_origin").index(0).text();
+  }
+}
@@ -3,9 +3,16 @@ package com.github.topi314.lavasrc.deezer;
 import com.github.topi314.lavasearch.AudioSearchManager;
 import com.github.topi314.lavasearch.result.AudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
+import com.github.topi314.lavasrc.CompactTrackList;
+import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
 import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
+import com.github.topi314.lavasrc.IncrementalPlaylistLoader;
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.MetadataCache;
+import com.github.topi314.lavasrc.PlaylistPageHandler;
+import com.github.topi314.lavasrc.StringPool;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
@@ -29,11 +36,15 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
-public class DeezerAudioSourceManager extends ExtendedAudioSourceManager implements HttpConfigurable, AudioSearchManager {
+public class DeezerAudioSourceManager extends ExtendedAudioSourceManager implements HttpConfigurable, AudioSearchManager, IncrementalPlaylistLoader {
 
 	public static final Pattern URL_PATTERN = Pattern.compile("(https?://)?(www\\.)?deezer\\.com/(?<countrycode>[a-zA-Z]{2}/)?(?<type>track|album|playlist|artist)/(?<identifier>[0-9]+)");
 	public static final String SEARCH_PREFIX = "dzsearch:";
@@ -44,20 +55,98 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 	public static final String PUBLIC_API_BASE = "https://api.deezer.com/2.0";
 	public static final String PRIVATE_API_BASE = "https://www.deezer.com/ajax/gw-light.php";
 	public static final String MEDIA_BASE = "https://media.deezer.com/v1";
+	public static final int MAX_PAGE_ITEMS = 100;
 	public static final Set<AudioSearchResult.Type> SEARCH_TYPES = Set.of(AudioSearchResult.Type.TRACK, AudioSearchResult.Type.ALBUM, AudioSearchResult.Type.PLAYLIST, AudioSearchResult.Type.ARTIST);
 	private static final Logger log = LoggerFactory.getLogger(DeezerAudioSourceManager.class);
 
   private final String masterDecryptionKey;
   private final HttpInterfaceManager httpInterfaceManager;
-  
+  private final DeezerMediaResolver mediaResolver;
+  private final ExecutorService loaderExecutor = LavaSrcTools.createLoaderExecutor("deezer");
+	private int playlistPageLimit = 100;
+	private int albumPageLimit = 100;
+	private int readAheadSize;
+	private String arl;
+	private final DeezerFormatPolicy formatPolicy = new DeezerFormatPolicy();
+	private final AtomicInteger activeStreams = new AtomicInteger();
+	private final AtomicLong activeBitrate = new AtomicLong();
+
   public DeezerAudioSourceManager() {
       this.masterDecryptionKey = "g4el58wc0zvf9na1";
       if (this.masterDecryptionKey == null || this.masterDecryptionKey.isEmpty()) {
           throw new IllegalArgumentException("Deezer master key must be set");
       }
       this.httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+      this.mediaResolver = new DeezerMediaResolver(this);
   }  
 
+	public void setPlaylistPageLimit(int playlistPageLimit) {
+		this.playlistPageLimit = playlistPageLimit;
+	}
+
+	public void setAlbumPageLimit(int albumPageLimit) {
+		this.albumPageLimit = albumPageLimit;
+	}
+
+	/**
+	 * Sets how many bytes of a playing track are buffered ahead of the decoder, 0 disables reading ahead.
+	 */
+	public void setReadAheadSize(int readAheadSize) {
+		this.readAheadSize = readAheadSize;
+	}
+
+	public int getReadAheadSize() {
+		return this.readAheadSize;
+	}
+
+	/**
+	 * Sets the arl cookie of the account media urls are requested with, needed for formats above MP3_128.
+	 */
+	public void setArl(String arl) {
+		this.arl = arl == null || arl.isEmpty() ? null : arl;
+	}
+
+	public String getArl() {
+		return this.arl;
+	}
+
+	public DeezerFormatPolicy getFormatPolicy() {
+		return this.formatPolicy;
+	}
+
+	public int getActiveStreams() {
+		return this.activeStreams.get();
+	}
+
+	/**
+	 * Combined bitrate in kbit/s of the tracks currently streaming.
+	 */
+	public long getActiveBitrate() {
+		return this.activeBitrate.get();
+	}
+
+	/**
+	 * Selects the format for a new stream and counts the stream with it right away, so concurrent selections see each other before their media is resolved.
+	 * The reservation has to be moved to the resolved format with {@link #adjustStream} and given back with {@link #releaseStream}.
+	 */
+	synchronized DeezerFormat reserveStream() {
+		var format = this.formatPolicy.select(this.activeStreams.get(), this.activeBitrate.get());
+		this.activeStreams.incrementAndGet();
+		this.activeBitrate.addAndGet(format.getBitrate());
+		return format;
+	}
+
+	void adjustStream(DeezerFormat reserved, DeezerFormat format) {
+		if (reserved != format) {
+			this.activeBitrate.addAndGet(format.getBitrate() - reserved.getBitrate());
+		}
+	}
+
+	void releaseStream(DeezerFormat format) {
+		this.activeStreams.decrementAndGet();
+		this.activeBitrate.addAndGet(-format.getBitrate());
+	}
+
 	@NotNull
 	@Override
 	public String getSourceName() {
@@ -66,7 +155,11 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 
 	@Override
 	public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) throws IOException {
-		var extendedAudioTrackInfo = super.decodeTrack(input);
+		return this.createTrack(trackInfo, super.decodeTrack(input));
+	}
+
+	@Override
+	protected AudioTrack createTrack(AudioTrackInfo trackInfo, ExtendedAudioTrackInfo extendedAudioTrackInfo) {
 		return new DeezerAudioTrack(trackInfo,
 			extendedAudioTrackInfo.albumName,
 			extendedAudioTrackInfo.albumUrl,
@@ -129,18 +222,19 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 			}
 
 			var id = matcher.group("identifier");
+			var cacheId = preview ? PREVIEW_PREFIX + id : id;
 			switch (matcher.group("type")) {
 				case "album":
-					return this.getAlbum(id, preview);
+					return this.loadCached(MetadataCache.Type.ALBUM, cacheId, null, () -> this.getAlbum(id, preview));
 
 				case "track":
-					return this.getTrack(id, preview);
+					return this.loadCached(MetadataCache.Type.TRACK, cacheId, null, () -> this.getTrack(id, preview));
 
 				case "playlist":
-					return this.getPlaylist(id, preview);
+					return this.loadCached(MetadataCache.Type.PLAYLIST, cacheId, null, () -> this.getPlaylist(id, preview));
 
 				case "artist":
-					return this.getArtist(id, preview);
+					return this.loadCached(MetadataCache.Type.ARTIST, cacheId, null, () -> this.getArtist(id, preview));
 			}
 
 		} catch (IOException e) {
@@ -178,24 +272,42 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 		return new DeezerAudioTrack(
 			new AudioTrackInfo(
 				json.get("title").text(),
-				json.get("artist").get("name").text(),
+				StringPool.intern(json.get("artist").get("name").text()),
 				preview ? PREVIEW_LENGTH : json.get("duration").asLong(0) * 1000,
 				id,
 				false,
 				"https://deezer.com/track/" + id,
-				json.get("album").get("cover_xl").text(),
+				StringPool.intern(json.get("album").get("cover_xl").text()),
 				json.get("isrc").text()
 			),
-			json.get("album").get("title").text(),
-			"https://www.deezer.com/album/" + json.get("album").get("id").text(),
-			"https://www.deezer.com/artist/" + json.get("artist").get("id").text(),
-			json.get("artist").get("picture_xl").text(),
+			StringPool.intern(json.get("album").get("title").text()),
+			StringPool.intern("https://www.deezer.com/album/" + json.get("album").get("id").text()),
+			StringPool.intern("https://www.deezer.com/artist/" + json.get("artist").get("id").text()),
+			StringPool.intern(json.get("artist").get("picture_xl").text()),
 			json.get("preview").text(),
 			preview,
 			this
 		);
 	}
 
+	private List<AudioTrack> registerTracks(List<AudioTrack> tracks, boolean preview) {
+		if (!preview) {
+			this.mediaResolver.registerTracks(CompactTrackList.getIdentifiers(tracks));
+		}
+		return tracks;
+	}
+
+	@Override
+	protected void onCacheHit(MetadataCache.Type type, AudioItem item) {
+		// playlists served from the cache skip the page loading which tells the media resolver their track order
+		if (item instanceof AudioPlaylist) {
+			var tracks = ((AudioPlaylist) item).getTracks();
+			if (!tracks.isEmpty() && tracks.get(0) instanceof DeezerAudioTrack) {
+				this.registerTracks(tracks, ((DeezerAudioTrack) tracks.get(0)).isPreview());
+			}
+		}
+	}
+
 	private AudioSearchResult getAutocomplete(String query, Set<AudioSearchResult.Type> types) throws IOException {
 		if (types.isEmpty()) {
 			types = SEARCH_TYPES;
@@ -281,16 +393,16 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 			return AudioReference.NO_TRACK;
 		}
 
+		var pages = this.getTrackPages("album", id, (int) json.get("nb_tracks").asLong(0), this.albumPageLimit, json.get("artist").get("picture_xl"), preview);
+		return this.createAlbum(json, LavaSrcTools.flatten(LavaSrcTools.awaitAll(pages)));
+	}
+
+	private ExtendedAudioPlaylist createAlbum(JsonBrowser json, List<AudioTrack> tracks) {
 		var artworkUrl = json.get("cover_xl").text();
 		var author = json.get("contributors").values().get(0).get("name").text();
 
-		var tracks = this.getJson(PUBLIC_API_BASE + "/album/" + id + "/tracks?limit=10000");
-		for (var track : tracks.get("data").values()) {			
-		track.get("artist").put("picture_xl", json.get("artist").get("picture_xl"));
-		}
-
 		return new DeezerAudioPlaylist(json.get("title").text(),
-				this.parseTracks(tracks, preview),
+				tracks,
 				DeezerAudioPlaylist.Type.ALBUM,
 				json.get("link").text(),
 				artworkUrl,
@@ -312,14 +424,17 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 			return AudioReference.NO_TRACK;
 		}
 
+		// This endpoint returns tracks with ISRC, unlike the other REST call
+		var pages = this.getTrackPages("playlist", id, (int) json.get("nb_tracks").asLong(0), this.playlistPageLimit, null, preview);
+		return this.createPlaylist(json, LavaSrcTools.flatten(LavaSrcTools.awaitAll(pages)));
+	}
+
+	private ExtendedAudioPlaylist createPlaylist(JsonBrowser json, List<AudioTrack> tracks) {
 		var artworkUrl = json.get("picture_xl").text();
 		var author = json.get("creator").get("name").text();
 
-		// This endpoint returns tracks with ISRC, unlike the other REST call
-		var tracks = this.getJson(PUBLIC_API_BASE + "/playlist/" + id + "/tracks?limit=10000");
-
 		return new DeezerAudioPlaylist(json.get("title").text(),
-				this.parseTracks(tracks, preview),
+				tracks,
 				DeezerAudioPlaylist.Type.PLAYLIST,
 				json.get("link").text(),
 				artworkUrl,
@@ -327,6 +442,61 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 				(int) json.get("nb_tracks").asLong(0));						// another change made via https://github.com/topi314/LavaSrc/commit/a7dfa2957a0d8331c1f14692e726c46d9d697012
 	}
 
+	@Override
+	public boolean loadPlaylist(String identifier, PlaylistPageHandler handler) {
+		var preview = identifier.startsWith(PREVIEW_PREFIX);
+		if (preview) {
+			identifier = identifier.substring(PREVIEW_PREFIX.length());
+		}
+		var matcher = URL_PATTERN.matcher(identifier);
+		if (!matcher.find()) {
+			return false;
+		}
+		var id = matcher.group("identifier");
+		var type = matcher.group("type");
+		if (!type.equals("album") && !type.equals("playlist")) {
+			return false;
+		}
+
+		try {
+			var json = this.getJson(PUBLIC_API_BASE + "/" + type + "/" + id);
+			if (json == null || json.get("tracks").get("data").values().isEmpty()) {
+				handler.noMatches();
+				return true;
+			}
+			var album = type.equals("album");
+			var pages = this.getTrackPages(type, id, (int) json.get("nb_tracks").asLong(0), album ? this.albumPageLimit : this.playlistPageLimit, album ? json.get("artist").get("picture_xl") : null, preview);
+			LavaSrcTools.loadPagesIncrementally(pages, tracks -> album ? this.createAlbum(json, tracks) : this.createPlaylist(json, tracks), handler);
+		} catch (Exception e) {
+			handler.loadFailed(e);
+		}
+		return true;
+	}
+
+	/**
+	 * Each page is parsed and released as soon as it arrives, so a load never holds more than a few pages of raw json regardless of the playlist size.
+	 */
+	private List<CompletableFuture<List<AudioTrack>>> getTrackPages(String type, String id, int total, int pageLimit, @Nullable JsonBrowser artistPicture, boolean preview) {
+		var pageCount = Math.max(1, Math.min(pageLimit, (total + MAX_PAGE_ITEMS - 1) / MAX_PAGE_ITEMS));
+		var pages = new ArrayList<CompletableFuture<List<AudioTrack>>>(pageCount);
+		for (var i = 0; i < pageCount; i++) {
+			var index = i * MAX_PAGE_ITEMS;
+			pages.add(LavaSrcTools.supplyAsync(() -> {
+				var page = this.getJson(PUBLIC_API_BASE + "/" + type + "/" + id + "/tracks?index=" + index + "&limit=" + MAX_PAGE_ITEMS);
+				if (page == null) {
+					return List.<AudioTrack>of();
+				}
+				if (artistPicture != null) {
+					for (var track : page.get("data").values()) {
+						track.get("artist").put("picture_xl", artistPicture);
+					}
+				}
+				return this.registerTracks(this.parseTracks(page, preview), preview);
+			}, this.loaderExecutor));
+		}
+		return pages;
+	}
+
 	private AudioItem getArtist(String id, boolean preview) throws IOException {
 		var json = this.getJson(PUBLIC_API_BASE + "/artist/" + id);
 		if (json == null) {
@@ -350,6 +520,8 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 
 	@Override
 	public void shutdown() {
+		this.mediaResolver.shutdown();
+		ExecutorTools.shutdownExecutor(this.loaderExecutor, "deezer loader");
 		try {
 			this.httpInterfaceManager.close();
 		} catch (IOException e) {
@@ -371,6 +543,10 @@ public class DeezerAudioSourceManager extends ExtendedAudioSourceManager impleme
 		return this.masterDecryptionKey;
 	}
 
+	public DeezerMediaResolver getMediaResolver() {
+		return this.mediaResolver;
+	}
+
 	public HttpInterface getHttpInterface() {
 		return this.httpInterfaceManager.getInterface();
 	}
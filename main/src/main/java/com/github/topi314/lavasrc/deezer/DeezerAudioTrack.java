@@ -1,26 +1,20 @@
 package com.github.topi314.lavasrc.deezer;
 
 import com.github.topi314.lavasrc.ExtendedAudioTrack;
-import com.github.topi314.lavasrc.LavaSrcTools;
+import com.sedmelluq.discord.lavaplayer.container.flac.FlacAudioTrack;
 import com.sedmelluq.discord.lavaplayer.container.mp3.Mp3AudioTrack;
 import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
 import com.sedmelluq.discord.lavaplayer.tools.FriendlyException;
-import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
+import com.sedmelluq.discord.lavaplayer.tools.Units;
 import com.sedmelluq.discord.lavaplayer.tools.io.PersistentHttpStream;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
 import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
 import org.apache.commons.codec.binary.Hex;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
 
-import java.io.IOException;
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.util.stream.Collectors;
 
 public class DeezerAudioTrack extends ExtendedAudioTrack {
 
@@ -35,47 +29,6 @@ public class DeezerAudioTrack extends ExtendedAudioTrack {
 		this.sourceManager = sourceManager;
 	}
 
-	private URI getTrackMediaURI() throws IOException, URISyntaxException {
-		var getSessionID = new HttpPost(DeezerAudioSourceManager.PRIVATE_API_BASE + "?method=deezer.ping&input=3&api_version=1.0&api_token=");
-		var json = LavaSrcTools.fetchResponseAsJson(this.sourceManager.getHttpInterface(), getSessionID);
-
-		this.checkResponse(json, "Failed to get session ID: ");
-		var sessionID = json.get("results").get("SESSION").text();
-
-		var getUserToken = new HttpPost(DeezerAudioSourceManager.PRIVATE_API_BASE + "?method=deezer.getUserData&input=3&api_version=1.0&api_token=");
-		getUserToken.setHeader("Cookie", "sid=" + sessionID);
-		json = LavaSrcTools.fetchResponseAsJson(this.sourceManager.getHttpInterface(), getUserToken);
-
-		this.checkResponse(json, "Failed to get user token: ");
-		var userLicenseToken = json.get("results").get("USER").get("OPTIONS").get("license_token").text();
-		var apiToken = json.get("results").get("checkForm").text();
-
-		var getTrackToken = new HttpPost(DeezerAudioSourceManager.PRIVATE_API_BASE + "?method=song.getData&input=3&api_version=1.0&api_token=" + apiToken);
-		getTrackToken.setEntity(new StringEntity("{\"sng_id\":\"" + this.trackInfo.identifier + "\"}", ContentType.APPLICATION_JSON));
-		json = LavaSrcTools.fetchResponseAsJson(this.sourceManager.getHttpInterface(), getTrackToken);
-
-		this.checkResponse(json, "Failed to get track token: ");
-		var trackToken = json.get("results").get("TRACK_TOKEN").text();
-
-		var getMediaURL = new HttpPost(DeezerAudioSourceManager.MEDIA_BASE + "/get_url");
-		getMediaURL.setEntity(new StringEntity("{\"license_token\":\"" + userLicenseToken + "\",\"media\": [{\"type\": \"FULL\",\"formats\": [{\"cipher\": \"BF_CBC_STRIPE\", \"format\": \"MP3_128\"}]}],\"track_tokens\": [\"" + trackToken + "\"]}", ContentType.APPLICATION_JSON));
-		json = LavaSrcTools.fetchResponseAsJson(this.sourceManager.getHttpInterface(), getMediaURL);
-
-		this.checkResponse(json, "Failed to get media URL: ");
-		return new URI(json.get("data").index(0).get("media").index(0).get("sources").index(0).get("url").text());
-	}
-
-	private void checkResponse(JsonBrowser json, String message) throws IllegalStateException {
-		if (json == null) {
-			throw new IllegalStateException(message + "No response");
-		}
-		var errors = json.get("data").index(0).get("errors").values();
-		if (!errors.isEmpty()) {
-			var errorsStr = errors.stream().map(error -> error.get("code").text() + ": " + error.get("message").text()).collect(Collectors.joining(", "));
-			throw new IllegalStateException(message + errorsStr);
-		}
-	}
-
 	private byte[] getTrackDecryptionKey() throws NoSuchAlgorithmException {
 		var md5 = Hex.encodeHex(MessageDigest.getInstance("MD5").digest(this.trackInfo.identifier.getBytes()), true);
 		var master_key = this.sourceManager.getMasterDecryptionKey().getBytes();
@@ -98,8 +51,18 @@ public class DeezerAudioTrack extends ExtendedAudioTrack {
 					processDelegate(new Mp3AudioTrack(this.trackInfo, stream), executor);
 				}
 			} else {
-				try (var stream = new DeezerPersistentHttpStream(httpInterface, this.getTrackMediaURI(), this.trackInfo.length, this.getTrackDecryptionKey())) {
-					processDelegate(new Mp3AudioTrack(this.trackInfo, stream), executor);
+				var mediaResolver = this.sourceManager.getMediaResolver();
+				var requestedFormat = this.sourceManager.reserveStream();
+				var format = requestedFormat;
+				try {
+					var media = mediaResolver.resolve(this.trackInfo.identifier, requestedFormat);
+					format = media.getFormat();
+					this.sourceManager.adjustStream(requestedFormat, format);
+					try (var stream = new DeezerPersistentHttpStream(httpInterface, media, () -> mediaResolver.resolve(this.trackInfo.identifier, requestedFormat), Units.CONTENT_LENGTH_UNKNOWN, this.getTrackDecryptionKey(), this.sourceManager.getReadAheadSize())) {
+						processDelegate(format.isLossless() ? new FlacAudioTrack(this.trackInfo, stream) : new Mp3AudioTrack(this.trackInfo, stream), executor);
+					}
+				} finally {
+					this.sourceManager.releaseStream(format);
 				}
 			}
 		}
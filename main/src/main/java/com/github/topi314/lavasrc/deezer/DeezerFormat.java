@@ -0,0 +1,31 @@
+package com.github.topi314.lavasrc.deezer;
+
+/**
+ * The audio formats Deezer serves full tracks in, from lowest to highest quality.
+ */
+public enum DeezerFormat {
+	MP3_128(128),
+	MP3_320(320),
+	FLAC(1411);
+
+	private final int bitrate;
+
+	DeezerFormat(int bitrate) {
+		this.bitrate = bitrate;
+	}
+
+	/**
+	 * The nominal bitrate in kbit/s, FLAC uses the uncompressed CD rate as an upper bound.
+	 */
+	public int getBitrate() {
+		return this.bitrate;
+	}
+
+	public boolean isLossless() {
+		return this == FLAC;
+	}
+
+	public DeezerFormat lower() {
+		return this == MP3_128 ? MP3_128 : values()[this.ordinal() - 1];
+	}
+}
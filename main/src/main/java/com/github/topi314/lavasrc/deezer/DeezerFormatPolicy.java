@@ -0,0 +1,62 @@
+package com.github.topi314.lavasrc.deezer;
+
+/**
+ * Picks the format new Deezer streams are requested in.
+ * Streams start at the configured maximum and step down the ladder while the number of concurrent streams or their combined bitrate is over its threshold,
+ * so quality is traded for throughput at peak load instead of every stream degrading.
+ */
+public class DeezerFormatPolicy {
+
+	private DeezerFormat maxFormat = DeezerFormat.MP3_128;
+	private int highQualityStreamLimit;
+	private long bandwidthLimit;
+
+	/**
+	 * Sets the highest format to request, anything above MP3_128 needs an arl of an account which is allowed to stream it.
+	 */
+	public void setMaxFormat(DeezerFormat maxFormat) {
+		this.maxFormat = maxFormat;
+	}
+
+	public DeezerFormat getMaxFormat() {
+		return this.maxFormat;
+	}
+
+	/**
+	 * Sets the number of concurrent streams from which on new streams are requested in MP3_128, 0 disables the limit.
+	 */
+	public void setHighQualityStreamLimit(int highQualityStreamLimit) {
+		this.highQualityStreamLimit = highQualityStreamLimit;
+	}
+
+	public int getHighQualityStreamLimit() {
+		return this.highQualityStreamLimit;
+	}
+
+	/**
+	 * Sets the combined bitrate in kbit/s of all streams which a new stream may not push the node over, 0 disables the limit.
+	 * The lowest format is always allowed.
+	 */
+	public void setBandwidthLimit(long bandwidthLimit) {
+		this.bandwidthLimit = bandwidthLimit;
+	}
+
+	public long getBandwidthLimit() {
+		return this.bandwidthLimit;
+	}
+
+	/**
+	 * @param activeStreams number of streams currently playing
+	 * @param activeBitrate combined bitrate of those streams in kbit/s
+	 */
+	public DeezerFormat select(int activeStreams, long activeBitrate) {
+		var format = this.maxFormat;
+		if (this.highQualityStreamLimit > 0 && activeStreams >= this.highQualityStreamLimit) {
+			return DeezerFormat.MP3_128;
+		}
+		while (format != DeezerFormat.MP3_128 && this.bandwidthLimit > 0 && activeBitrate + format.getBitrate() > this.bandwidthLimit) {
+			format = format.lower();
+		}
+		return format;
+	}
+}
@@ -0,0 +1,429 @@
+package com.github.topi314.lavasrc.deezer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.topi314.lavasrc.LavaSrcTools;
+import com.sedmelluq.discord.lavaplayer.tools.DaemonThreadFactory;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
+import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves Deezer media urls in batches.
+ * Track ids requested within {@link #BATCH_WINDOW_MS} of each other, plus the tracks following them in the playlist or album they were loaded from,
+ * are resolved with a single song.getListData and one get_url call per requested format. Following tracks are only requested once per {@link #PREFETCH_WINDOW_MS}.
+ * Resolved urls are cached per track and requested format until shortly before their signed expiry, so replays and reconnects don't call the api again.
+ */
+public class DeezerMediaResolver {
+
+	public static final int BATCH_SIZE = 25;
+	public static final long BATCH_WINDOW_MS = 25;
+	public static final long EXPIRY_MARGIN_MS = 60_000;
+	public static final long DEFAULT_TTL_MS = 30 * 60_000;
+	public static final long PREFETCH_WINDOW_MS = 5 * 60_000;
+	private static final int MAX_TRACKED_TRACKS = 10_000;
+	private static final int MAX_CACHED_URLS = 10_000;
+	private static final long RESOLVE_TIMEOUT_MS = 30_000;
+	private static final int BATCH_THREADS = 4;
+	private static final Logger log = LoggerFactory.getLogger(DeezerMediaResolver.class);
+
+	private final DeezerAudioSourceManager sourceManager;
+	// only times the batch window, the batches themselves run on their own pool so one slow response doesn't hold up the others
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("deezer-media"));
+	private final ExecutorService batchExecutor = Executors.newFixedThreadPool(BATCH_THREADS, new DaemonThreadFactory("deezer-media-batch"));
+	private final Cache<String, MediaUrl> cache = Caffeine.newBuilder()
+		.maximumSize(MAX_CACHED_URLS)
+		.expireAfter(new MediaUrlExpiry())
+		.build();
+	// tracks recently requested as following tracks, so later plays from the same playlist don't request them again
+	private final Cache<String, Boolean> prefetched = Caffeine.newBuilder()
+		.maximumSize(MAX_CACHED_URLS)
+		.expireAfterWrite(PREFETCH_WINDOW_MS, TimeUnit.MILLISECONDS)
+		.build();
+	private final Map<String, Request> pending = new LinkedHashMap<>();
+	private final Map<String, List<String>> loadedTracks = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+			return this.size() > MAX_TRACKED_TRACKS;
+		}
+	};
+	private ScheduledFuture<?> scheduledFlush;
+
+	public DeezerMediaResolver(DeezerAudioSourceManager sourceManager) {
+		this.sourceManager = sourceManager;
+	}
+
+	/**
+	 * Remembers the order of tracks loaded together, so playing one of them also resolves the ones following it.
+	 */
+	public void registerTracks(List<String> trackIds) {
+		if (trackIds.size() < 2) {
+			return;
+		}
+		var ids = List.copyOf(trackIds);
+		synchronized (this.loadedTracks) {
+			for (var id : ids) {
+				this.loadedTracks.put(id, ids);
+			}
+		}
+	}
+
+	/**
+	 * Resolves the media url of a track in the given format, or the best lower one the track or account is available in.
+	 */
+	public MediaUrl resolve(String trackId, DeezerFormat format) throws IOException {
+		CompletableFuture<MediaUrl> future;
+		synchronized (this.pending) {
+			var cached = this.getCached(trackId, format);
+			if (cached != null) {
+				return cached;
+			}
+			var request = this.pending.get(getKey(trackId, format));
+			if (request != null) {
+				future = request.future;
+			} else {
+				future = this.enqueue(trackId, format);
+				for (var id : this.getFollowingTracks(trackId)) {
+					if (this.pending.size() >= BATCH_SIZE) {
+						break;
+					}
+					var key = getKey(id, format);
+					if (!this.pending.containsKey(key) && this.getCached(id, format) == null && this.prefetched.getIfPresent(key) == null) {
+						this.prefetched.put(key, Boolean.TRUE);
+						this.enqueue(id, format);
+					}
+				}
+				this.scheduleFlush();
+			}
+		}
+
+		try {
+			return future.get(RESOLVE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while resolving media url for track " + trackId, e);
+		} catch (TimeoutException e) {
+			throw new IOException("Timed out resolving media url for track " + trackId, e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	public void invalidate(String trackId, DeezerFormat format) {
+		this.cache.invalidate(getKey(trackId, format));
+	}
+
+	public void shutdown() {
+		ExecutorTools.shutdownExecutor(this.executor, "deezer media");
+		ExecutorTools.shutdownExecutor(this.batchExecutor, "deezer media batch");
+	}
+
+	private static String getKey(String trackId, DeezerFormat format) {
+		return trackId + ":" + format;
+	}
+
+	private MediaUrl getCached(String trackId, DeezerFormat format) {
+		return this.cache.getIfPresent(getKey(trackId, format));
+	}
+
+	private CompletableFuture<MediaUrl> enqueue(String trackId, DeezerFormat format) {
+		var request = new Request(trackId, format);
+		this.pending.put(getKey(trackId, format), request);
+		return request.future;
+	}
+
+	private List<String> getFollowingTracks(String trackId) {
+		List<String> ids;
+		synchronized (this.loadedTracks) {
+			ids = this.loadedTracks.get(trackId);
+		}
+		if (ids == null) {
+			return List.of();
+		}
+		var index = ids.indexOf(trackId);
+		return ids.subList(index + 1, Math.min(ids.size(), index + BATCH_SIZE));
+	}
+
+	private void scheduleFlush() {
+		if (this.pending.size() >= BATCH_SIZE) {
+			if (this.scheduledFlush != null) {
+				this.scheduledFlush.cancel(false);
+			}
+			this.scheduledFlush = this.executor.schedule(this::flush, 0, TimeUnit.MILLISECONDS);
+		} else if (this.scheduledFlush == null) {
+			this.scheduledFlush = this.executor.schedule(this::flush, BATCH_WINDOW_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private void flush() {
+		var batch = new ArrayList<Request>(BATCH_SIZE);
+		synchronized (this.pending) {
+			this.scheduledFlush = null;
+			var iterator = this.pending.values().iterator();
+			while (batch.size() < BATCH_SIZE && iterator.hasNext()) {
+				batch.add(iterator.next());
+				iterator.remove();
+			}
+			// requests which arrived while the last batch was being resolved can exceed one batch, the rest goes out right after
+			if (!this.pending.isEmpty()) {
+				this.scheduleFlush();
+			}
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		try {
+			this.batchExecutor.execute(() -> this.runBatch(batch));
+		} catch (RejectedExecutionException e) {
+			batch.forEach(request -> request.future.completeExceptionally(e));
+		}
+	}
+
+	private void runBatch(List<Request> batch) {
+		try {
+			this.resolveBatch(batch);
+		} catch (Exception e) {
+			log.error("Failed to resolve media urls for {} tracks", batch.size(), e);
+			batch.forEach(request -> request.future.completeExceptionally(e));
+		}
+	}
+
+	private void resolveBatch(List<Request> batch) throws IOException {
+		var httpInterface = this.sourceManager.getHttpInterface();
+
+		var getSessionID = new HttpPost(DeezerAudioSourceManager.PRIVATE_API_BASE + "?method=deezer.ping&input=3&api_version=1.0&api_token=");
+		this.setCookie(getSessionID, null);
+		var json = LavaSrcTools.fetchResponseAsJson(httpInterface, getSessionID);
+
+		checkResponse(json, "Failed to get session ID: ");
+		var sessionID = json.get("results").get("SESSION").text();
+
+		var getUserToken = new HttpPost(DeezerAudioSourceManager.PRIVATE_API_BASE + "?method=deezer.getUserData&input=3&api_version=1.0&api_token=");
+		this.setCookie(getUserToken, sessionID);
+		json = LavaSrcTools.fetchResponseAsJson(httpInterface, getUserToken);
+
+		checkResponse(json, "Failed to get user token: ");
+		var userOptions = json.get("results").get("USER").get("OPTIONS");
+		var userLicenseToken = userOptions.get("license_token").text();
+		var apiToken = json.get("results").get("checkForm").text();
+		var accountFormat = getAccountFormat(userOptions);
+
+		var ids = batch.stream().map(request -> request.trackId).distinct().collect(Collectors.toList());
+		var getTrackTokens = new HttpPost(DeezerAudioSourceManager.PRIVATE_API_BASE + "?method=song.getListData&input=3&api_version=1.0&api_token=" + apiToken);
+		this.setCookie(getTrackTokens, sessionID);
+		getTrackTokens.setEntity(new StringEntity("{\"sng_ids\":[" + ids.stream().map(id -> "\"" + id + "\"").collect(Collectors.joining(",")) + "]}", ContentType.APPLICATION_JSON));
+		json = LavaSrcTools.fetchResponseAsJson(httpInterface, getTrackTokens);
+
+		checkResponse(json, "Failed to get track tokens: ");
+		var trackTokens = new HashMap<String, String>();
+		for (var song : json.get("results").get("data").values()) {
+			var trackToken = song.get("TRACK_TOKEN").text();
+			if (trackToken != null) {
+				trackTokens.put(song.get("SNG_ID").text(), trackToken);
+			}
+		}
+
+		// get_url takes a single format ladder per call, so requests are grouped by the format they can actually get
+		var groups = new EnumMap<DeezerFormat, List<Request>>(DeezerFormat.class);
+		for (var request : batch) {
+			if (!trackTokens.containsKey(request.trackId)) {
+				request.future.completeExceptionally(new IllegalStateException("Failed to get track token for track " + request.trackId));
+				continue;
+			}
+			var format = request.format.compareTo(accountFormat) > 0 ? accountFormat : request.format;
+			groups.computeIfAbsent(format, key -> new ArrayList<>()).add(request);
+		}
+		for (var group : groups.entrySet()) {
+			this.resolveMediaUrls(userLicenseToken, group.getKey(), group.getValue(), trackTokens);
+		}
+	}
+
+	private void resolveMediaUrls(String userLicenseToken, DeezerFormat format, List<Request> requests, Map<String, String> trackTokens) throws IOException {
+		var formats = new ArrayList<String>();
+		for (var current = format; ; current = current.lower()) {
+			formats.add("{\"cipher\": \"BF_CBC_STRIPE\", \"format\": \"" + current + "\"}");
+			if (current == DeezerFormat.MP3_128) {
+				break;
+			}
+		}
+
+		var getMediaURL = new HttpPost(DeezerAudioSourceManager.MEDIA_BASE + "/get_url");
+		getMediaURL.setEntity(new StringEntity("{\"license_token\":\"" + userLicenseToken + "\",\"media\": [{\"type\": \"FULL\",\"formats\": [" + String.join(",", formats) + "]}],\"track_tokens\": [" + requests.stream().map(request -> "\"" + trackTokens.get(request.trackId) + "\"").collect(Collectors.joining(",")) + "]}", ContentType.APPLICATION_JSON));
+		var json = LavaSrcTools.fetchResponseAsJson(this.sourceManager.getHttpInterface(), getMediaURL);
+		if (json == null) {
+			throw new IllegalStateException("Failed to get media URL: No response");
+		}
+
+		// get_url answers with one entry per track token, in the order they were sent. Entries can't be matched to tracks any other way,
+		// so a response with a different count fails every request instead of handing out urls of the wrong tracks
+		var data = json.get("data");
+		if (data.values().size() != requests.size()) {
+			var exception = new IllegalStateException("Failed to get media URL: Expected " + requests.size() + " entries but got " + data.values().size());
+			requests.forEach(request -> request.future.completeExceptionally(exception));
+			return;
+		}
+		var i = 0;
+		for (var request : requests) {
+			var entry = data.index(i++);
+			var errors = entry.get("errors").values();
+			if (!errors.isEmpty()) {
+				var errorsStr = errors.stream().map(error -> error.get("code").text() + ": " + error.get("message").text()).collect(Collectors.joining(", "));
+				request.future.completeExceptionally(new IllegalStateException("Failed to get media URL: " + errorsStr));
+				continue;
+			}
+			var media = entry.get("media").index(0);
+			var url = media.get("sources").index(0).get("url").text();
+			if (url == null) {
+				request.future.completeExceptionally(new IllegalStateException("Failed to get media URL: No sources for track " + request.trackId));
+				continue;
+			}
+			try {
+				var uri = new URI(url);
+				var exp = media.get("exp").asLong(0);
+				var expiresAt = exp > 0 ? exp * 1000 : System.currentTimeMillis() + DEFAULT_TTL_MS;
+				var mediaUrl = new MediaUrl(uri, parseFormat(media.get("format").text()), expiresAt);
+				this.cache.put(getKey(request.trackId, request.format), mediaUrl);
+				request.future.complete(mediaUrl);
+			} catch (URISyntaxException e) {
+				request.future.completeExceptionally(e);
+			}
+		}
+	}
+
+	private void setCookie(HttpPost request, String sessionID) {
+		var cookies = new ArrayList<String>(2);
+		var arl = this.sourceManager.getArl();
+		if (arl != null) {
+			cookies.add("arl=" + arl);
+		}
+		if (sessionID != null) {
+			cookies.add("sid=" + sessionID);
+		}
+		if (!cookies.isEmpty()) {
+			request.setHeader("Cookie", String.join("; ", cookies));
+		}
+	}
+
+	/**
+	 * The best format the account the license token belongs to may stream, anonymous sessions only get MP3_128.
+	 */
+	private static DeezerFormat getAccountFormat(JsonBrowser userOptions) {
+		if (userOptions.get("web_lossless").asBoolean(false)) {
+			return DeezerFormat.FLAC;
+		}
+		if (userOptions.get("web_hq").asBoolean(false)) {
+			return DeezerFormat.MP3_320;
+		}
+		return DeezerFormat.MP3_128;
+	}
+
+	private static DeezerFormat parseFormat(String format) {
+		if (format != null) {
+			for (var value : DeezerFormat.values()) {
+				if (value.name().equals(format)) {
+					return value;
+				}
+			}
+		}
+		return DeezerFormat.MP3_128;
+	}
+
+	private static void checkResponse(JsonBrowser json, String message) throws IllegalStateException {
+		if (json == null) {
+			throw new IllegalStateException(message + "No response");
+		}
+		var errors = json.get("data").index(0).get("errors").values();
+		if (!errors.isEmpty()) {
+			var errorsStr = errors.stream().map(error -> error.get("code").text() + ": " + error.get("message").text()).collect(Collectors.joining(", "));
+			throw new IllegalStateException(message + errorsStr);
+		}
+	}
+
+	public static class MediaUrl {
+
+		private final URI uri;
+		private final DeezerFormat format;
+		private final long expiresAt;
+
+		private MediaUrl(URI uri, DeezerFormat format, long expiresAt) {
+			this.uri = uri;
+			this.format = format;
+			this.expiresAt = expiresAt;
+		}
+
+		public URI getUri() {
+			return this.uri;
+		}
+
+		/**
+		 * The format the url serves, which may be lower than the requested one.
+		 */
+		public DeezerFormat getFormat() {
+			return this.format;
+		}
+
+		public long getExpiresAt() {
+			return this.expiresAt;
+		}
+
+		/**
+		 * Whether the url expires within {@link #EXPIRY_MARGIN_MS}, which leaves too little time to start streaming from it.
+		 */
+		public boolean isExpired() {
+			return this.expiresAt - EXPIRY_MARGIN_MS < System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Expires urls {@link #EXPIRY_MARGIN_MS} before their signed expiry.
+	 */
+	private static class MediaUrlExpiry implements Expiry<String, MediaUrl> {
+
+		@Override
+		public long expireAfterCreate(String key, MediaUrl mediaUrl, long currentTime) {
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(0, mediaUrl.expiresAt - EXPIRY_MARGIN_MS - System.currentTimeMillis()));
+		}
+
+		@Override
+		public long expireAfterUpdate(String key, MediaUrl mediaUrl, long currentTime, long currentDuration) {
+			return this.expireAfterCreate(key, mediaUrl, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String key, MediaUrl mediaUrl, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
+	}
+
+	private static class Request {
+
+		private final String trackId;
+		private final DeezerFormat format;
+		private final CompletableFuture<MediaUrl> future = new CompletableFuture<>();
+
+		private Request(String trackId, DeezerFormat format) {
+			this.trackId = trackId;
+			this.format = format;
+		}
+	}
+
+}
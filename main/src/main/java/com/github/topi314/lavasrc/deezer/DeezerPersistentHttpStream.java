@@ -1,76 +1,116 @@
 package com.github.topi314.lavasrc.deezer;
 
-import com.sedmelluq.discord.lavaplayer.tools.io.ByteBufferInputStream;
+import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.ReadAheadHttpStream;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
-import com.sedmelluq.discord.lavaplayer.tools.io.PersistentHttpStream;
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.nio.ByteBuffer;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import org.apache.http.HttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class DeezerPersistentHttpStream extends PersistentHttpStream {
+public class DeezerPersistentHttpStream extends ReadAheadHttpStream {
+
+  private static final Logger log = LoggerFactory.getLogger(
+    DeezerPersistentHttpStream.class
+  );
+  private static final int BLOCK_SIZE = 2048;
+  private static final byte[] IV = new byte[] { 0, 1, 2, 3, 4, 5, 6, 7 };
 
   private final byte[] keyMaterial;
+  private final LavaSrcTools.IOSupplier<DeezerMediaResolver.MediaUrl> mediaUrlSupplier;
+  private DeezerMediaResolver.MediaUrl mediaUrl;
+  // reconnects of the same stream are sequential, so one cipher serves all of them
+  private Cipher cipher;
+  // the position a pending connect was requested at, while the position itself points at the start of its stripe
+  private long connectPosition = -1;
 
+  /**
+   * @param mediaUrlSupplier supplies a fresh media url once the current one expires, for reconnects late into a track
+   */
   public DeezerPersistentHttpStream(
     HttpInterface httpInterface,
-    URI contentUrl,
+    DeezerMediaResolver.MediaUrl mediaUrl,
+    LavaSrcTools.IOSupplier<DeezerMediaResolver.MediaUrl> mediaUrlSupplier,
     Long contentLength,
-    byte[] keyMaterial
+    byte[] keyMaterial,
+    int readAheadSize
   ) {
-    super(httpInterface, contentUrl, contentLength);
+    super(httpInterface, mediaUrl.getUri(), contentLength, readAheadSize);
+    this.mediaUrl = mediaUrl;
+    this.mediaUrlSupplier = mediaUrlSupplier;
     this.keyMaterial = keyMaterial;
   }
 
+  @Override
+  protected URI getConnectUrl() {
+    // The range header is built from the position right after this, so the request starts at the beginning of the stripe.
+    // Stripes are only decryptable as a whole, the offset into it is discarded once it is decrypted.
+    if (this.connectPosition == -1) {
+      this.connectPosition = this.position;
+    }
+    this.position = this.connectPosition - this.connectPosition % BLOCK_SIZE;
+    return this.getMediaUrl().getUri();
+  }
+
+  private DeezerMediaResolver.MediaUrl getMediaUrl() {
+    if (this.mediaUrl.isExpired()) {
+      try {
+        var mediaUrl = this.mediaUrlSupplier.get();
+        // the decoder is bound to the format, so a url for another one is of no use
+        if (mediaUrl.getFormat() == this.mediaUrl.getFormat()) {
+          this.mediaUrl = mediaUrl;
+        }
+      } catch (IOException e) {
+        log.warn("Failed to refresh expired media url, trying the expired one", e);
+      }
+    }
+    return this.mediaUrl;
+  }
+
+  @Override
+  protected void seekHard(long position) throws IOException {
+    this.connectPosition = -1;
+    super.seekHard(position);
+  }
+
   @Override
   public InputStream createContentInputStream(HttpResponse response)
     throws IOException {
+    var position = this.connectPosition == -1
+      ? this.position
+      : this.connectPosition;
+    this.connectPosition = -1;
+    this.position = position;
     return new DecryptingInputStream(
-      response.getEntity().getContent(),
-      this.keyMaterial,
-      this.position
+      super.createContentInputStream(response),
+      this.getCipher(),
+      position
     );
   }
 
-  private static class DecryptingInputStream extends InputStream {
-
-    private static final int BLOCK_SIZE = 2048;
-    private static final byte[] iv = new byte[] { 0, 1, 2, 3, 4, 5, 6, 7 };
-
-    private final InputStream in;
-    private final ByteBuffer buff;
-    private final InputStream out;
-    private final Cipher cipher;
-    private long i;
-    private boolean filled;
-
-    public DecryptingInputStream(
-      InputStream in,
-      byte[] keyMaterial,
-      long position
-    ) throws IOException {
-      this.in = new BufferedInputStream(in);
-      this.buff = ByteBuffer.allocate(BLOCK_SIZE);
-      this.out = new ByteBufferInputStream(this.buff);
-
+  private Cipher getCipher() throws IOException {
+    if (this.cipher == null) {
       try {
-        cipher = Cipher.getInstance("Blowfish/CBC/NoPadding");
+        var cipher = Cipher.getInstance("Blowfish/CBC/NoPadding");
         cipher.init(
           Cipher.DECRYPT_MODE,
-          new SecretKeySpec(keyMaterial, "Blowfish"),
-          new IvParameterSpec(iv)
+          new SecretKeySpec(this.keyMaterial, "Blowfish"),
+          new IvParameterSpec(IV)
         );
+        this.cipher = cipher;
       } catch (
         NoSuchAlgorithmException
         | NoSuchPaddingException
@@ -79,37 +119,119 @@ public class DeezerPersistentHttpStream extends PersistentHttpStream {
       ) {
         throw new IOException(e);
       }
+    }
+    return this.cipher;
+  }
 
-      i = Math.max(0, position / BLOCK_SIZE);
-      var remainingBytesInChunk = ((i + 1) * BLOCK_SIZE) - position;
-      if (remainingBytesInChunk < 2048) {
-        in.skip(remainingBytesInChunk);
-        i++;
-      }
+  private static class DecryptingInputStream extends InputStream {
+
+    private final InputStream in;
+    private final byte[] stripe = new byte[BLOCK_SIZE];
+    private final Cipher cipher;
+    private long i;
+    private int stripePosition;
+    private int stripeLimit;
+    private int stripeOffset;
+
+    /**
+     * Expects the content to start at the beginning of the stripe containing the position.
+     */
+    public DecryptingInputStream(
+      InputStream in,
+      Cipher cipher,
+      long position
+    ) {
+      // stripes are read straight into their buffer, so no intermediate buffering is needed
+      this.in = in;
+      this.cipher = cipher;
+      this.i = position / BLOCK_SIZE;
+      this.stripeOffset = (int) (position % BLOCK_SIZE);
     }
 
     @Override
     public int read() throws IOException {
-      if (this.filled && this.out.available() > 0) {
-        return this.out.read();
+      if (this.stripePosition == this.stripeLimit && !this.fillStripe()) {
+        return -1;
+      }
+      return this.stripe[this.stripePosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      Objects.checkFromIndexSize(off, len, b.length);
+      if (len == 0) {
+        return 0;
+      }
+      var read = 0;
+      while (read < len) {
+        if (this.stripePosition == this.stripeLimit) {
+          // hand out what we have instead of blocking for the next stripe
+          if (read > 0 && this.in.available() < BLOCK_SIZE) {
+            break;
+          }
+          if (!this.fillStripe()) {
+            break;
+          }
+        }
+        var length = Math.min(len - read, this.stripeLimit - this.stripePosition);
+        System.arraycopy(this.stripe, this.stripePosition, b, off + read, length);
+        this.stripePosition += length;
+        read += length;
+      }
+      return read == 0 ? -1 : read;
+    }
+
+    @Override
+    public int available() throws IOException {
+      var buffered = this.stripeLimit - this.stripePosition;
+      // only whole stripes can be decrypted, so a partial one in the source doesn't count yet
+      var pending = this.in.available();
+      return buffered + pending - pending % BLOCK_SIZE;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      if (n <= 0) {
+        return 0;
+      }
+      var skipped = 0L;
+      while (skipped < n) {
+        if (this.stripePosition == this.stripeLimit && !this.fillStripe()) {
+          break;
+        }
+        var length = (int) Math.min(n - skipped, this.stripeLimit - this.stripePosition);
+        this.stripePosition += length;
+        skipped += length;
+      }
+      return skipped;
+    }
+
+    /**
+     * Reads the next stripe from the source, decrypting it if it is every third one.
+     * Returns false once the source is exhausted.
+     */
+    private boolean fillStripe() throws IOException {
+      var length = this.in.readNBytes(this.stripe, 0, BLOCK_SIZE);
+      this.stripePosition = 0;
+      this.stripeLimit = length;
+      if (length == 0) {
+        return false;
       }
-      var chunk = this.in.readNBytes(BLOCK_SIZE);
-      this.buff.clear();
-      this.filled = true;
-      if (this.i % 3 > 0 || chunk.length < BLOCK_SIZE) {
-        this.buff.put(chunk);
-      } else {
-        byte[] decryptedChunk;
+      if (this.i % 3 == 0 && length == BLOCK_SIZE) {
         try {
-          decryptedChunk = this.cipher.doFinal(chunk);
-        } catch (IllegalBlockSizeException | BadPaddingException e) {
-          throw new RuntimeException(e);
+          // decrypts in place, doFinal resets the cipher to its initial IV for the next stripe
+          this.cipher.doFinal(this.stripe, 0, BLOCK_SIZE, this.stripe, 0);
+        } catch (
+          IllegalBlockSizeException | BadPaddingException | ShortBufferException e
+        ) {
+          throw new IOException(e);
         }
-        this.buff.put(decryptedChunk);
       }
-      i++;
-      this.buff.flip();
-      return this.out.read();
+      this.i++;
+      // the first stripe after a seek starts at the requested offset into it
+      this.stripePosition = Math.min(this.stripeOffset, length);
+      this.stripeOffset = 0;
+      return this.stripePosition < this.stripeLimit || this.fillStripe();
     }
   }
 }
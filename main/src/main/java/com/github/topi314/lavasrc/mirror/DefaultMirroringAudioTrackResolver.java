@@ -25,6 +25,8 @@ public class DefaultMirroringAudioTrackResolver implements MirroringAudioTrackRe
 
   @Override
   public AudioItem apply(MirroringAudioTrack mirroringAudioTrack) {
+    String isrc = null;
+    var isrcResolved = false;
     for (var provider : providers) {
       if (provider.startsWith(SpotifySourceManager.SEARCH_PREFIX)) {
         log.warn("Can not use spotify search as search provider!");
@@ -37,8 +39,17 @@ public class DefaultMirroringAudioTrackResolver implements MirroringAudioTrackRe
       }
 
       if (provider.contains(MirroringAudioSourceManager.ISRC_PATTERN)) {
-        if (mirroringAudioTrack.getInfo().isrc != null && !mirroringAudioTrack.getInfo().isrc.isEmpty()) {
-          provider = provider.replace(MirroringAudioSourceManager.ISRC_PATTERN, mirroringAudioTrack.getInfo().isrc);
+        // only looked up once a provider needs it, as some sources have to request it
+        if (!isrcResolved) {
+          isrcResolved = true;
+          try {
+            isrc = ((MirroringAudioSourceManager) mirroringAudioTrack.getSourceManager()).getIsrc(mirroringAudioTrack);
+          } catch (Exception e) {
+            log.error("Failed to look up the ISRC of track \"{}\"!", mirroringAudioTrack.getIdentifier(), e);
+          }
+        }
+        if (isrc != null && !isrc.isEmpty()) {
+          provider = provider.replace(MirroringAudioSourceManager.ISRC_PATTERN, isrc);
         } else {
           log.debug("Ignoring identifier \"{}\" because this track does not have an ISRC!", provider);
           continue;
@@ -1,16 +1,22 @@
 package com.github.topi314.lavasrc.mirror;
 
 import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
+import com.github.topi314.lavasrc.ExtendedAudioTrack;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpConfigurable;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import java.io.DataInput;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +26,7 @@ public abstract class MirroringAudioSourceManager
 
   public static final String ISRC_PATTERN = "%ISRC%";
   public static final String QUERY_PATTERN = "%QUERY%";
+  public static final long DEFAULT_MIRROR_FRESHNESS_MS = TimeUnit.HOURS.toMillis(24);
   private static final Logger log = LoggerFactory.getLogger(
           MirroringAudioSourceManager.class
   );
@@ -27,6 +34,7 @@ public abstract class MirroringAudioSourceManager
   protected final MirroringAudioTrackResolver resolver;
 
   protected final HttpInterfaceManager httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+  private long mirrorFreshness = DEFAULT_MIRROR_FRESHNESS_MS;
 
   protected MirroringAudioSourceManager(
           AudioPlayerManager audioPlayerManager,
@@ -43,6 +51,49 @@ public abstract class MirroringAudioSourceManager
     this.resolver = resolver;
   }
 
+  /**
+   * Sets how long a mirror stored in an encoded track is played without searching for it again.
+   */
+  public void setMirrorFreshness(long mirrorFreshness) {
+    this.mirrorFreshness = mirrorFreshness;
+  }
+
+  public long getMirrorFreshness() {
+    return this.mirrorFreshness;
+  }
+
+  /**
+   * Returns the ISRC to search a mirror with. Sources whose listings don't include it override this to look it up on demand.
+   */
+  @Nullable
+  public String getIsrc(MirroringAudioTrack track) throws IOException {
+    return track.getInfo().isrc;
+  }
+
+  @Override
+  public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input)
+          throws IOException {
+    var extendedAudioTrackInfo = this.decodeTrack(input);
+    var track = this.createTrack(trackInfo, extendedAudioTrackInfo);
+    if (track instanceof MirroringAudioTrack && extendedAudioTrackInfo.extension != null) {
+      ((MirroringAudioTrack) track).setResolvedMirror(
+              ResolvedMirror.decode(extendedAudioTrackInfo.extension)
+      );
+    }
+    return track;
+  }
+
+  @Override
+  @Nullable
+  protected byte[] encodeExtension(ExtendedAudioTrack track)
+          throws IOException {
+    if (!(track instanceof MirroringAudioTrack)) {
+      return null;
+    }
+    var resolvedMirror = ((MirroringAudioTrack) track).getResolvedMirror();
+    return resolvedMirror == null ? null : resolvedMirror.encode();
+  }
+
   @Override
   public void configureRequests(
           Function<RequestConfig, RequestConfig> configurator
@@ -8,6 +8,7 @@ import com.sedmelluq.discord.lavaplayer.tools.io.PersistentHttpStream;
 import com.sedmelluq.discord.lavaplayer.tools.io.SeekableInputStream;
 import com.sedmelluq.discord.lavaplayer.track.*;
 import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +21,9 @@ public abstract class MirroringAudioTrack extends ExtendedAudioTrack {
 
   protected final MirroringAudioSourceManager sourceManager;
 
+  @Nullable
+  private volatile ResolvedMirror resolvedMirror;
+
   public MirroringAudioTrack(AudioTrackInfo trackInfo, String albumName, String albumUrl, String artistUrl, String artistArtworkUrl, String previewUrl, boolean isPreview, MirroringAudioSourceManager sourceManager) {
     super(trackInfo, albumName, albumUrl, artistUrl, artistArtworkUrl, previewUrl, isPreview);
     this.sourceManager = sourceManager;
@@ -40,6 +44,16 @@ public abstract class MirroringAudioTrack extends ExtendedAudioTrack {
       }
       return;
     }
+    var resolvedMirror = this.resolvedMirror;
+    if (resolvedMirror != null && resolvedMirror.isFresh(this.sourceManager.getMirrorFreshness())) {
+      var mirror = this.loadResolvedMirror(resolvedMirror);
+      if (mirror != null) {
+        log.debug("Loaded stored track mirror from {} {}({}) ", resolvedMirror.getSourceName(), mirror.getInfo().title, mirror.getInfo().uri);
+        processDelegate(mirror, executor);
+        return;
+      }
+    }
+
     var track = this.sourceManager.getResolver().apply(this);
 
     if (track instanceof AudioPlaylist) {
@@ -52,12 +66,45 @@ public abstract class MirroringAudioTrack extends ExtendedAudioTrack {
     if (track instanceof InternalAudioTrack) {
       var internalTrack = (InternalAudioTrack) track;
       log.debug("Loaded track mirror from {} {}({}) ", internalTrack.getSourceManager().getSourceName(), internalTrack.getInfo().title, internalTrack.getInfo().uri);
+      this.resolvedMirror = ResolvedMirror.of(internalTrack);
       processDelegate(internalTrack, executor);
       return;
     }
     throw new TrackNotFoundException("No mirror found for track");
   }
 
+  @Nullable
+  private InternalAudioTrack loadResolvedMirror(ResolvedMirror resolvedMirror) {
+    try {
+      var item = this.loadItem(resolvedMirror.getReference());
+      if (item instanceof InternalAudioTrack && ((InternalAudioTrack) item).getSourceManager().getSourceName().equals(resolvedMirror.getSourceName())) {
+        return (InternalAudioTrack) item;
+      }
+    } catch (Exception e) {
+      log.debug("Failed to load stored track mirror {}, searching again", resolvedMirror.getReference(), e);
+    }
+    this.resolvedMirror = null;
+    return null;
+  }
+
+  @Nullable
+  public ResolvedMirror getResolvedMirror() {
+    return this.resolvedMirror;
+  }
+
+  public void setResolvedMirror(@Nullable ResolvedMirror resolvedMirror) {
+    this.resolvedMirror = resolvedMirror;
+  }
+
+  @Override
+  public AudioTrack makeClone() {
+    var clone = super.makeClone();
+    if (clone instanceof MirroringAudioTrack) {
+      ((MirroringAudioTrack) clone).resolvedMirror = this.resolvedMirror;
+    }
+    return clone;
+  }
+
   @Override
   public AudioSourceManager getSourceManager() {
     return this.sourceManager;
@@ -0,0 +1,93 @@
+package com.github.topi314.lavasrc.mirror;
+
+import com.sedmelluq.discord.lavaplayer.tools.DataFormatTools;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The track a mirroring track was last resolved to, so it can be played again without searching for it.
+ */
+public class ResolvedMirror {
+
+  private final String sourceName;
+  private final String identifier;
+
+  @Nullable
+  private final String uri;
+
+  private final long resolvedAt;
+
+  public ResolvedMirror(
+    String sourceName,
+    String identifier,
+    @Nullable String uri,
+    long resolvedAt
+  ) {
+    this.sourceName = sourceName;
+    this.identifier = identifier;
+    this.uri = uri;
+    this.resolvedAt = resolvedAt;
+  }
+
+  public static ResolvedMirror of(AudioTrack track) {
+    return new ResolvedMirror(
+      track.getSourceManager().getSourceName(),
+      track.getIdentifier(),
+      track.getInfo().uri,
+      System.currentTimeMillis()
+    );
+  }
+
+  public static ResolvedMirror decode(byte[] data) throws IOException {
+    var input = new DataInputStream(new ByteArrayInputStream(data));
+    return new ResolvedMirror(
+      input.readUTF(),
+      input.readUTF(),
+      DataFormatTools.readNullableText(input),
+      input.readLong()
+    );
+  }
+
+  public byte[] encode() throws IOException {
+    var data = new ByteArrayOutputStream();
+    var output = new DataOutputStream(data);
+    output.writeUTF(this.sourceName);
+    output.writeUTF(this.identifier);
+    DataFormatTools.writeNullableText(output, this.uri);
+    output.writeLong(this.resolvedAt);
+    return data.toByteArray();
+  }
+
+  public String getSourceName() {
+    return this.sourceName;
+  }
+
+  public String getIdentifier() {
+    return this.identifier;
+  }
+
+  @Nullable
+  public String getUri() {
+    return this.uri;
+  }
+
+  public long getResolvedAt() {
+    return this.resolvedAt;
+  }
+
+  /**
+   * The reference to load the mirror with, its url if it has one.
+   */
+  public String getReference() {
+    return this.uri != null ? this.uri : this.identifier;
+  }
+
+  public boolean isFresh(long freshness) {
+    return System.currentTimeMillis() - this.resolvedAt < freshness;
+  }
+}
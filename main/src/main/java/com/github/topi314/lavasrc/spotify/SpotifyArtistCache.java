@@ -0,0 +1,139 @@
+package com.github.topi314.lavasrc.spotify;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.topi314.lavasrc.LavaSrcTools;
+import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches the artist fields used for artwork enrichment, so only artists which were not seen recently are requested.
+ * Concurrent lookups of the same artist share one request, artists Spotify doesn't return are not cached.
+ */
+public class SpotifyArtistCache {
+
+  public static final int MAX_BATCH_SIZE = 50;
+  public static final long DEFAULT_TTL_MS = TimeUnit.HOURS.toMillis(1);
+  public static final int DEFAULT_MAX_SIZE = 10_000;
+
+  private final SpotifySourceManager sourceManager;
+  private final AsyncLoadingCache<String, JsonBrowser> artists;
+
+  public SpotifyArtistCache(SpotifySourceManager sourceManager) {
+    this(sourceManager, DEFAULT_TTL_MS, DEFAULT_MAX_SIZE);
+  }
+
+  public SpotifyArtistCache(
+    SpotifySourceManager sourceManager,
+    long ttl,
+    int maxSize
+  ) {
+    this.sourceManager = sourceManager;
+    this.artists =
+      Caffeine
+        .newBuilder()
+        .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+        .maximumSize(maxSize)
+        // load on the thread asking for the artists, it may already be one of the source's loader threads
+        .executor(Runnable::run)
+        .buildAsync(new ArtistLoader());
+  }
+
+  /**
+   * Stores an artist which was already fetched by another request.
+   */
+  public void put(JsonBrowser artistJson) {
+    var artist = trim(artistJson);
+    if (artist != null) {
+      this.artists.put(
+          artist.get("id").text(),
+          CompletableFuture.completedFuture(artist)
+        );
+    }
+  }
+
+  @Nullable
+  public JsonBrowser getArtist(String id) throws IOException {
+    if (id == null || id.isEmpty()) {
+      return null;
+    }
+    return LavaSrcTools.await(this.artists.get(id));
+  }
+
+  /**
+   * Returns the artists by their id, requesting all uncached ones in batched artists?ids= calls.
+   */
+  public Map<String, JsonBrowser> getArtists(Collection<String> ids)
+    throws IOException {
+    var validIds = new LinkedHashSet<String>(ids.size());
+    for (var id : ids) {
+      if (id != null && !id.isEmpty()) {
+        validIds.add(id);
+      }
+    }
+    if (validIds.isEmpty()) {
+      return new HashMap<>();
+    }
+    return new HashMap<>(LavaSrcTools.await(this.artists.getAll(validIds)));
+  }
+
+  @Nullable
+  private static JsonBrowser trim(JsonBrowser artistJson) {
+    var id = artistJson.get("id").text();
+    if (id == null) {
+      return null;
+    }
+    // only keep the fields needed for enrichment instead of the whole artist object
+    var artist = JsonBrowser.newMap();
+    artist.put("id", id);
+    artist.put("name", artistJson.get("name").text());
+    artist.put("images", artistJson.get("images"));
+    return artist;
+  }
+
+  private class ArtistLoader implements CacheLoader<String, JsonBrowser> {
+
+    @Nullable
+    @Override
+    public JsonBrowser load(String id) throws IOException {
+      return this.loadAll(Set.of(id)).get(id);
+    }
+
+    @Override
+    public Map<String, JsonBrowser> loadAll(Set<? extends String> ids)
+      throws IOException {
+      var result = new HashMap<String, JsonBrowser>(ids.size());
+      var missingIds = new ArrayList<String>(ids);
+      for (var i = 0; i < missingIds.size(); i += MAX_BATCH_SIZE) {
+        var batch = missingIds.subList(
+          i,
+          Math.min(i + MAX_BATCH_SIZE, missingIds.size())
+        );
+        var json =
+          sourceManager.getJson(
+            SpotifySourceManager.API_BASE + "artists?ids=" + String.join(",", batch)
+          );
+        if (json == null) {
+          continue;
+        }
+        for (var artistJson : json.get("artists").values()) {
+          var artist = trim(artistJson);
+          if (artist != null) {
+            result.put(artist.get("id").text(), artist);
+          }
+        }
+      }
+      return result;
+    }
+  }
+}
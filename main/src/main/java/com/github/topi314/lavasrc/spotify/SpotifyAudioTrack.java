@@ -51,6 +51,12 @@ public class SpotifyAudioTrack extends MirroringAudioTrack {
   protected AudioTrack makeShallowClone() {
     return new SpotifyAudioTrack(
       this.trackInfo,
+      this.albumName,
+      this.albumUrl,
+      this.artistUrl,
+      this.artistArtworkUrl,
+      this.previewUrl,
+      this.isPreview,
       (SpotifySourceManager) this.sourceManager
     );
   }
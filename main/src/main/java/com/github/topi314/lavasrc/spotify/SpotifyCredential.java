@@ -0,0 +1,50 @@
+package com.github.topi314.lavasrc.spotify;
+
+import java.time.Instant;
+import org.jetbrains.annotations.Nullable;
+
+public class SpotifyCredential {
+
+  @Nullable
+  private final String clientId;
+
+  @Nullable
+  private final String clientSecret;
+
+  String token;
+  Instant tokenExpire;
+
+  /**
+   * Creates an anonymous credential which uses the web player access token.
+   */
+  public SpotifyCredential() {
+    this(null, null);
+  }
+
+  public SpotifyCredential(
+    @Nullable String clientId,
+    @Nullable String clientSecret
+  ) {
+    this.clientId = clientId;
+    this.clientSecret = clientSecret;
+  }
+
+  @Nullable
+  public String getClientId() {
+    return this.clientId;
+  }
+
+  @Nullable
+  public String getClientSecret() {
+    return this.clientSecret;
+  }
+
+  public boolean isAnonymous() {
+    return (
+      this.clientId == null ||
+      this.clientId.isEmpty() ||
+      this.clientSecret == null ||
+      this.clientSecret.isEmpty()
+    );
+  }
+}
@@ -1,25 +1,35 @@
 package com.github.topi314.lavasrc.spotify;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.topi314.lavasearch.AudioSearchManager;
 import com.github.topi314.lavasearch.result.AudioSearchResult;
 import com.github.topi314.lavasearch.result.BasicAudioSearchResult;
+import com.github.topi314.lavasrc.CredentialPool;
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
+import com.github.topi314.lavasrc.IncrementalPlaylistLoader;
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.MetadataCache;
+import com.github.topi314.lavasrc.PlaylistPageHandler;
+import com.github.topi314.lavasrc.StringPool;
 import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
 import com.github.topi314.lavasrc.mirror.MirroringAudioSourceManager;
+import com.github.topi314.lavasrc.mirror.MirroringAudioTrack;
 import com.github.topi314.lavasrc.mirror.MirroringAudioTrackResolver;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpConfigurable;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
 import com.sedmelluq.discord.lavaplayer.track.*;
-import java.io.DataInput;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
@@ -38,7 +48,7 @@ import org.slf4j.LoggerFactory;
 
 public class SpotifySourceManager
   extends MirroringAudioSourceManager
-  implements HttpConfigurable, AudioSearchManager {
+  implements HttpConfigurable, AudioSearchManager, IncrementalPlaylistLoader {
 
   public static final Pattern URL_PATTERN = Pattern.compile(
     "(https?://)(www\\.)?open\\.spotify\\.com/((?<region>[a-zA-Z-]+)/)?(user/(?<user>[a-zA-Z0-9-_]+)/)?(?<type>track|album|playlist|artist)/(?<identifier>[a-zA-Z0-9-_]+)"
@@ -50,6 +60,7 @@ public class SpotifySourceManager
   public static final String SHARE_URL = "https://spotify.link/";
   public static final int PLAYLIST_MAX_PAGE_ITEMS = 100;
   public static final int ALBUM_MAX_PAGE_ITEMS = 50;
+  public static final int TRACK_LOOKUP_MAX_IDS = 50;
   public static final String API_BASE = "https://api.spotify.com/v1/";
   public static final Set<AudioSearchResult.Type> SEARCH_TYPES = Set.of(
     AudioSearchResult.Type.ALBUM,
@@ -57,16 +68,26 @@ public class SpotifySourceManager
     AudioSearchResult.Type.PLAYLIST,
     AudioSearchResult.Type.TRACK
   );
+  private static final int MAX_CACHED_PLAYLIST_SNAPSHOTS = 10_000;
   private static final Logger log = LoggerFactory.getLogger(
     SpotifySourceManager.class
   );
 
   private final HttpInterfaceManager httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+  private final ExecutorService loaderExecutor = LavaSrcTools.createLoaderExecutor(
+    "spotify"
+  );
   private final String countryCode;
   private int playlistPageLimit = 6;
   private int albumPageLimit = 6;
-  private String token;
-  private Instant tokenExpire;
+  private final CredentialPool<SpotifyCredential> credentials;
+  private final SpotifyArtistCache artistCache = new SpotifyArtistCache(this);
+  // the snapshot id each playlist was last cached under, to tell whether a cached playlist is still current.
+  // entries outliving their playlist in the metadata cache only cost the revalidation request
+  private final Cache<String, String> playlistSnapshots = Caffeine
+    .newBuilder()
+    .maximumSize(MAX_CACHED_PLAYLIST_SNAPSHOTS)
+    .build();
 
   public SpotifySourceManager(
     String[] providers,
@@ -108,12 +129,45 @@ public class SpotifySourceManager
     String countryCode,
     Function<Void, AudioPlayerManager> audioPlayerManager,
     MirroringAudioTrackResolver mirroringAudioTrackResolver
+  ) {
+    this(
+      List.of(),
+      countryCode,
+      audioPlayerManager,
+      mirroringAudioTrackResolver
+    );
+  }
+
+  public SpotifySourceManager(
+    String[] providers,
+    List<SpotifyCredential> credentials,
+    String countryCode,
+    Function<Void, AudioPlayerManager> audioPlayerManager
+  ) {
+    this(
+      credentials,
+      countryCode,
+      audioPlayerManager,
+      new DefaultMirroringAudioTrackResolver(providers)
+    );
+  }
+
+  public SpotifySourceManager(
+    List<SpotifyCredential> credentials,
+    String countryCode,
+    Function<Void, AudioPlayerManager> audioPlayerManager,
+    MirroringAudioTrackResolver mirroringAudioTrackResolver
   ) {
     super(audioPlayerManager, mirroringAudioTrackResolver);
     if (countryCode == null || countryCode.isEmpty()) {
       countryCode = "US";
     }
     this.countryCode = countryCode;
+    // without any configured clients fall back to the anonymous web player token
+    this.credentials =
+      new CredentialPool<>(
+        credentials.isEmpty() ? List.of(new SpotifyCredential()) : credentials
+      );
   }
 
   public void setPlaylistPageLimit(int playlistPageLimit) {
@@ -130,9 +184,10 @@ public class SpotifySourceManager
   }
 
   @Override
-  public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input)
-    throws IOException {
-    var extendedAudioTrackInfo = super.decodeTrack(input);
+  protected AudioTrack createTrack(
+    AudioTrackInfo trackInfo,
+    ExtendedAudioTrackInfo extendedAudioTrackInfo
+  ) {
     return new SpotifyAudioTrack(
       trackInfo,
       extendedAudioTrackInfo.albumName,
@@ -219,15 +274,31 @@ public class SpotifySourceManager
       }
 
       var id = matcher.group("identifier");
+      var cacheId = preview ? PREVIEW_PREFIX + id : id;
       switch (matcher.group("type")) {
         case "album":
-          return this.getAlbum(id, preview);
+          return this.loadCached(
+              MetadataCache.Type.ALBUM,
+              cacheId,
+              this.countryCode,
+              () -> this.getAlbum(id, preview)
+            );
         case "track":
-          return this.getTrack(id, preview);
+          return this.loadCached(
+              MetadataCache.Type.TRACK,
+              cacheId,
+              this.countryCode,
+              () -> this.getTrack(id, preview)
+            );
         case "playlist":
           return this.getPlaylist(id, preview);
         case "artist":
-          return this.getArtist(id, preview);
+          return this.loadCached(
+              MetadataCache.Type.ARTIST,
+              cacheId,
+              this.countryCode,
+              () -> this.getArtist(id, preview)
+            );
       }
     } catch (IOException e) {
       throw new RuntimeException(e);
@@ -235,40 +306,79 @@ public class SpotifySourceManager
     return null;
   }
 
-  public void obtainAccessToken() throws IOException {
-    var accessTokenUrl =
-      "https://open.spotify.com/get_access_token?reason=transport&productType=embed";
-    var request = new HttpGet(accessTokenUrl);
+  public void obtainAccessToken(SpotifyCredential credential)
+    throws IOException {
+    if (credential.isAnonymous()) {
+      var accessTokenUrl =
+        "https://open.spotify.com/get_access_token?reason=transport&productType=embed";
+      var request = new HttpGet(accessTokenUrl);
+      var json = HttpClientTools.fetchResponseAsJson(
+        this.httpInterfaceManager.getInterface(),
+        request
+      );
+
+      credential.token = json.get("accessToken").text();
+      var expirationTimestampMs = json
+        .get("accessTokenExpirationTimestampMs")
+        .asLong(0);
+      credential.tokenExpire = Instant.ofEpochMilli(expirationTimestampMs);
+      return;
+    }
+
+    var request = new HttpPost("https://accounts.spotify.com/api/token");
+    request.addHeader(
+      "Authorization",
+      "Basic " +
+      Base64
+        .getEncoder()
+        .encodeToString(
+          (credential.getClientId() + ":" + credential.getClientSecret()).getBytes(
+              StandardCharsets.UTF_8
+            )
+        )
+    );
+    request.setEntity(
+      new UrlEncodedFormEntity(
+        List.of(new BasicNameValuePair("grant_type", "client_credentials")),
+        StandardCharsets.UTF_8
+      )
+    );
     var json = HttpClientTools.fetchResponseAsJson(
       this.httpInterfaceManager.getInterface(),
       request
     );
 
-    this.token = json.get("accessToken").text();
-    var expirationTimestampMs = json
-      .get("accessTokenExpirationTimestampMs")
-      .asLong(0);
-    this.tokenExpire = Instant.ofEpochMilli(expirationTimestampMs);
+    credential.token = json.get("access_token").text();
+    credential.tokenExpire =
+      Instant.now().plusSeconds(json.get("expires_in").asLong(0));
   }
 
   public String getToken() throws IOException {
-    if (
-      this.token == null ||
-      this.tokenExpire == null ||
-      this.tokenExpire.isBefore(Instant.now())
-    ) {
-      this.obtainAccessToken();
+    return this.getToken(this.credentials.peek());
+  }
+
+  public String getToken(SpotifyCredential credential) throws IOException {
+    synchronized (credential) {
+      if (
+        credential.token == null ||
+        credential.tokenExpire == null ||
+        credential.tokenExpire.isBefore(Instant.now())
+      ) {
+        this.obtainAccessToken(credential);
+      }
+      return credential.token;
     }
-    return this.token;
   }
 
   public JsonBrowser getJson(String uri) throws IOException {
-    var request = new HttpGet(uri);
-    request.addHeader("Authorization", "Bearer " + this.getToken());
-    return LavaSrcTools.fetchResponseAsJson(
-      this.httpInterfaceManager.getInterface(),
-      request
-    );
+    return this.credentials.fetchResponseAsJson(
+        this.httpInterfaceManager.getInterface(),
+        credential -> {
+          var request = new HttpGet(uri);
+          request.addHeader("Authorization", "Bearer " + this.getToken(credential));
+          return request;
+        }
+      );
   }
 
 private AudioSearchResult getAutocomplete(String query, Set<AudioSearchResult.Type> types) throws IOException {
@@ -318,28 +428,18 @@ private List<AudioPlaylist> parsePlaylistItems(JsonBrowser items, ExtendedAudioP
       return AudioReference.NO_TRACK;
     }
 
-    var artistIds = json
-      .get("tracks")
-      .get("items")
-      .values()
-      .stream()
-      .map(track -> track.get("artists").index(0).get("id").text())
-      .collect(Collectors.joining(","));
-    var artistJson = this.getJson(API_BASE + "artists?ids=" + artistIds);
-    if (artistJson != null) {
-      for (var artist : artistJson.get("artists").values()) {
-        for (var track : json.get("tracks").get("items").values()) {
-          if (
-            track
-              .get("artists")
-              .index(0)
-              .get("id")
-              .text()
-              .equals(artist.get("id").text())
-          ) {
-            track.get("artists").index(0).put("images", artist.get("images"));
-          }
-        }
+    var items = json.get("tracks").get("items").values();
+    var artists =
+      this.artistCache.getArtists(
+          items
+            .stream()
+            .map(track -> track.get("artists").index(0).get("id").text())
+            .collect(Collectors.toList())
+        );
+    for (var track : items) {
+      var artist = artists.get(track.get("artists").index(0).get("id").text());
+      if (artist != null) {
+        track.get("artists").index(0).put("images", artist.get("images"));
       }
     }
 
@@ -369,66 +469,67 @@ private List<AudioPlaylist> parsePlaylistItems(JsonBrowser items, ExtendedAudioP
     );
   }
 
-  public AudioItem getAlbum(String id, boolean preview) throws IOException {
-    var json = this.getJson(API_BASE + "albums/" + id);
-    if (json == null) {
-      return AudioReference.NO_TRACK;
+  @Override
+  public boolean loadPlaylist(String identifier, PlaylistPageHandler handler) {
+    var preview = identifier.startsWith(PREVIEW_PREFIX);
+    if (preview) {
+      identifier = identifier.substring(PREVIEW_PREFIX.length());
     }
-
-    var artistJson =
-      this.getJson(
-          API_BASE + "artists/" + json.get("artists").index(0).get("id").text()
-        );
-    if (artistJson == null) {
-      artistJson = JsonBrowser.newMap();
+    var matcher = URL_PATTERN.matcher(identifier);
+    if (!matcher.find()) {
+      return false;
+    }
+    var id = matcher.group("identifier");
+    var type = matcher.group("type");
+    if (!type.equals("album") && !type.equals("playlist")) {
+      return false;
     }
 
-    var tracks = new ArrayList<AudioTrack>();
-    JsonBrowser page;
-    var offset = 0;
-    var pages = 0;
-    do {
-      page =
-        this.getJson(
-            API_BASE +
-            "albums/" +
-            id +
-            "/tracks?limit=" +
-            ALBUM_MAX_PAGE_ITEMS +
-            "&offset=" +
-            offset
-          );
-      offset += ALBUM_MAX_PAGE_ITEMS;
-
-      var tracksPage =
-        this.getJson(
-            API_BASE +
-            "tracks/?ids=" +
-            page
-              .get("items")
-              .values()
-              .stream()
-              .map(track -> track.get("id").text())
-              .collect(Collectors.joining(","))
-          );
-
-      for (var track : tracksPage.get("tracks").values()) {
-        var albumJson = JsonBrowser.newMap();
-        albumJson.put("external_urls", json.get("external_urls"));
-        albumJson.put("name", json.get("name"));
-        albumJson.put("images", json.get("images"));
-        track.put("album", albumJson);
-
-        track.get("artists").index(0).put("images", artistJson.get("images"));
+    try {
+      var json = this.getJson(API_BASE + type + "s/" + id);
+      if (json == null) {
+        handler.noMatches();
+        return true;
       }
+      if (type.equals("album")) {
+        LavaSrcTools.loadPagesIncrementally(
+          this.getAlbumPages(json, id, preview),
+          tracks -> this.createAlbum(json, tracks),
+          handler
+        );
+      } else {
+        LavaSrcTools.loadPagesIncrementally(
+          this.getPlaylistPages(json, id, preview),
+          tracks -> this.createPlaylist(json, tracks),
+          handler
+        );
+      }
+    } catch (Exception e) {
+      handler.loadFailed(e);
+    }
+    return true;
+  }
 
-      tracks.addAll(this.parseTracks(tracksPage, preview));
-    } while (page.get("next").text() != null && ++pages < this.albumPageLimit);
+  public AudioItem getAlbum(String id, boolean preview) throws IOException {
+    var json = this.getJson(API_BASE + "albums/" + id);
+    if (json == null) {
+      return AudioReference.NO_TRACK;
+    }
 
+    var tracks = LavaSrcTools.flatten(
+      LavaSrcTools.awaitAll(this.getAlbumPages(json, id, preview))
+    );
     if (tracks.isEmpty()) {
       return AudioReference.NO_TRACK;
     }
 
+    return this.createAlbum(json, tracks);
+  }
+
+  private ExtendedAudioPlaylist createAlbum(
+    JsonBrowser json,
+    List<AudioTrack> tracks
+  ) {
     return new SpotifyAudioPlaylist(
       json.get("name").text(),
       tracks,
@@ -440,44 +541,214 @@ private List<AudioPlaylist> parsePlaylistItems(JsonBrowser items, ExtendedAudioP
     );
   }
 
+  private List<CompletableFuture<List<AudioTrack>>> getAlbumPages(
+    JsonBrowser json,
+    String id,
+    boolean preview
+  ) {
+    var artistFuture = LavaSrcTools.supplyAsync(
+      () ->
+        this.artistCache.getArtist(
+            json.get("artists").index(0).get("id").text()
+          ),
+      this.loaderExecutor
+    );
+
+    // the album response already embeds the first page, the remaining ones are fetched concurrently with the artist
+    var firstPage = json.get("tracks");
+    var total = (int) firstPage.get("total").asLong(0);
+    var pageCount = Math.max(
+      1,
+      Math.min(
+        this.albumPageLimit,
+        (total + ALBUM_MAX_PAGE_ITEMS - 1) / ALBUM_MAX_PAGE_ITEMS
+      )
+    );
+    var pages = new ArrayList<CompletableFuture<List<AudioTrack>>>(pageCount);
+    for (var i = 0; i < pageCount; i++) {
+      var offset = i * ALBUM_MAX_PAGE_ITEMS;
+      CompletableFuture<JsonBrowser> page = i == 0
+        ? CompletableFuture.completedFuture(firstPage)
+        : LavaSrcTools.supplyAsync(
+          () ->
+            this.getJson(
+                API_BASE +
+                "albums/" +
+                id +
+                "/tracks?limit=" +
+                ALBUM_MAX_PAGE_ITEMS +
+                "&offset=" +
+                offset
+              ),
+          this.loaderExecutor
+        );
+      var isrcs = page.thenCompose(this::getAlbumTrackIsrcs);
+      pages.add(
+        page
+          .thenCombine(isrcs, this::withIsrcs)
+          .thenCombine(
+            artistFuture,
+            (items, artistJson) -> {
+              var tracks = new ArrayList<AudioTrack>(items.size());
+              for (var track : items) {
+                var albumJson = JsonBrowser.newMap();
+                albumJson.put("external_urls", json.get("external_urls"));
+                albumJson.put("name", json.get("name"));
+                albumJson.put("images", json.get("images"));
+                track.put("album", albumJson);
+
+                if (artistJson != null) {
+                  track
+                    .get("artists")
+                    .index(0)
+                    .put("images", artistJson.get("images"));
+                }
+
+                tracks.add(this.parseTrack(track, preview));
+              }
+              return tracks;
+            }
+          )
+      );
+    }
+    return pages;
+  }
+
+  /**
+   * Album pages only contain simplified tracks without ISRCs, so those are looked up in tracks?ids= calls of up to {@link #TRACK_LOOKUP_MAX_IDS} tracks as soon as a page arrives,
+   * concurrently with the remaining pages. A failed lookup leaves the ISRCs to {@link #getIsrc}.
+   */
+  private CompletableFuture<Map<String, String>> getAlbumTrackIsrcs(
+    @Nullable JsonBrowser page
+  ) {
+    if (page == null) {
+      return CompletableFuture.completedFuture(Map.of());
+    }
+    var ids = page
+      .get("items")
+      .values()
+      .stream()
+      .map(track -> track.get("id").text())
+      .filter(Objects::nonNull)
+      .collect(Collectors.toList());
+    var lookups = new ArrayList<CompletableFuture<JsonBrowser>>();
+    for (var i = 0; i < ids.size(); i += TRACK_LOOKUP_MAX_IDS) {
+      var batch = String.join(
+        ",",
+        ids.subList(i, Math.min(i + TRACK_LOOKUP_MAX_IDS, ids.size()))
+      );
+      lookups.add(
+        LavaSrcTools.supplyAsync(
+          () -> this.getJson(API_BASE + "tracks?ids=" + batch),
+          this.loaderExecutor
+        )
+      );
+    }
+    return CompletableFuture
+      .allOf(lookups.toArray(CompletableFuture[]::new))
+      .thenApply(unused -> {
+        Map<String, String> isrcs = new HashMap<>(ids.size());
+        for (var lookup : lookups) {
+          var tracks = lookup.join();
+          if (tracks == null) {
+            continue;
+          }
+          for (var track : tracks.get("tracks").values()) {
+            var isrc = track.get("external_ids").get("isrc").text();
+            if (isrc != null) {
+              isrcs.put(track.get("id").text(), isrc);
+            }
+          }
+        }
+        return isrcs;
+      })
+      .exceptionally(e -> {
+        log.warn("Failed to look up ISRCs of album tracks", e);
+        return Map.of();
+      });
+  }
+
+  private List<JsonBrowser> withIsrcs(
+    @Nullable JsonBrowser page,
+    Map<String, String> isrcs
+  ) {
+    if (page == null) {
+      return List.of();
+    }
+    var items = page.get("items").values();
+    for (var track : items) {
+      var isrc = isrcs.get(track.get("id").text());
+      if (isrc != null) {
+        var externalIds = JsonBrowser.newMap();
+        externalIds.put("isrc", isrc);
+        track.put("external_ids", externalIds);
+      }
+    }
+    return items;
+  }
+
+  /**
+   * Playlists are cached by their snapshot id, which only changes along with the playlist.
+   * A cached playlist is revalidated with a single request for its current snapshot id, uncached ones take the snapshot id from the full response.
+   */
   public AudioItem getPlaylist(String id, boolean preview) throws IOException {
+    var cacheId = preview ? PREVIEW_PREFIX + id : id;
+    var cachedSnapshotId = this.playlistSnapshots.getIfPresent(cacheId);
+    if (cachedSnapshotId != null) {
+      var header =
+        this.getJson(API_BASE + "playlists/" + id + "?fields=snapshot_id");
+      if (header == null) {
+        return AudioReference.NO_TRACK;
+      }
+      if (cachedSnapshotId.equals(header.get("snapshot_id").text())) {
+        var cached = this.getCached(
+            MetadataCache.Type.PLAYLIST_SNAPSHOT,
+            cacheId + "@" + cachedSnapshotId,
+            this.countryCode
+          );
+        if (cached != null) {
+          return cached;
+        }
+      }
+    }
+
     var json = this.getJson(API_BASE + "playlists/" + id);
     if (json == null) {
       return AudioReference.NO_TRACK;
     }
+    var playlist = this.fetchPlaylist(json, id, preview);
+    var snapshotId = json.get("snapshot_id").text();
+    if (
+      playlist instanceof ExtendedAudioPlaylist &&
+      snapshotId != null &&
+      this.putCached(
+          MetadataCache.Type.PLAYLIST_SNAPSHOT,
+          cacheId + "@" + snapshotId,
+          this.countryCode,
+          playlist
+        )
+    ) {
+      this.playlistSnapshots.put(cacheId, snapshotId);
+    }
+    return playlist;
+  }
 
-    var tracks = new ArrayList<AudioTrack>();
-    JsonBrowser page;
-    var offset = 0;
-    var pages = 0;
-    do {
-      page =
-        this.getJson(
-            API_BASE +
-            "playlists/" +
-            id +
-            "/tracks?limit=" +
-            PLAYLIST_MAX_PAGE_ITEMS +
-            "&offset=" +
-            offset
-          );
-      offset += PLAYLIST_MAX_PAGE_ITEMS;
-
-      for (var value : page.get("items").values()) {
-        var track = value.get("track");
-        if (track.isNull() || track.get("is_local").asBoolean(false) || track.get("type").text().equals("episode")) { // https://github.com/topi314/LavaSrc/commit/d35f8934fe66b8a453dba1d09d6a1374e9ce8fed 
-          continue;
-        }
-        tracks.add(this.parseTrack(track, preview));
-      }
-    } while (
-      page.get("next").text() != null && ++pages < this.playlistPageLimit
+  private AudioItem fetchPlaylist(JsonBrowser json, String id, boolean preview)
+    throws IOException {
+    var tracks = LavaSrcTools.flatten(
+      LavaSrcTools.awaitAll(this.getPlaylistPages(json, id, preview))
     );
-
     if (tracks.isEmpty()) {
       return AudioReference.NO_TRACK;
     }
 
+    return this.createPlaylist(json, tracks);
+  }
+
+  private ExtendedAudioPlaylist createPlaylist(
+    JsonBrowser json,
+    List<AudioTrack> tracks
+  ) {
     return new SpotifyAudioPlaylist(
       json.get("name").text(),
       tracks,
@@ -489,11 +760,75 @@ private List<AudioPlaylist> parsePlaylistItems(JsonBrowser items, ExtendedAudioP
     );
   }
 
+  private List<CompletableFuture<List<AudioTrack>>> getPlaylistPages(
+    JsonBrowser json,
+    String id,
+    boolean preview
+  ) {
+    // the playlist response already embeds the first page, the remaining ones are fetched concurrently
+    var firstPage = json.get("tracks");
+    var total = (int) firstPage.get("total").asLong(0);
+    var pageCount = Math.max(
+      1,
+      Math.min(
+        this.playlistPageLimit,
+        (total + PLAYLIST_MAX_PAGE_ITEMS - 1) / PLAYLIST_MAX_PAGE_ITEMS
+      )
+    );
+    var pages = new ArrayList<CompletableFuture<List<AudioTrack>>>(pageCount);
+    pages.add(
+      CompletableFuture.completedFuture(
+        this.parsePlaylistPage(firstPage, preview)
+      )
+    );
+    for (var i = 1; i < pageCount; i++) {
+      var offset = i * PLAYLIST_MAX_PAGE_ITEMS;
+      pages.add(
+        LavaSrcTools.supplyAsync(
+          () ->
+            this.parsePlaylistPage(
+                this.getJson(
+                    API_BASE +
+                    "playlists/" +
+                    id +
+                    "/tracks?limit=" +
+                    PLAYLIST_MAX_PAGE_ITEMS +
+                    "&offset=" +
+                    offset
+                  ),
+                preview
+              ),
+          this.loaderExecutor
+        )
+      );
+    }
+    return pages;
+  }
+
+  private List<AudioTrack> parsePlaylistPage(
+    @Nullable JsonBrowser page,
+    boolean preview
+  ) {
+    var tracks = new ArrayList<AudioTrack>();
+    if (page == null) {
+      return tracks;
+    }
+    for (var value : page.get("items").values()) {
+      var track = value.get("track");
+      if (track.isNull() || track.get("is_local").asBoolean(false) || track.get("type").text().equals("episode")) { // https://github.com/topi314/LavaSrc/commit/d35f8934fe66b8a453dba1d09d6a1374e9ce8fed 
+        continue;
+      }
+      tracks.add(this.parseTrack(track, preview));
+    }
+    return tracks;
+  }
+
   public AudioItem getArtist(String id, boolean preview) throws IOException {
     var json = this.getJson(API_BASE + "artists/" + id);
     if (json == null) {
       return AudioReference.NO_TRACK;
     }
+    this.artistCache.put(json);
 
     var tracksJson =
       this.getJson(
@@ -525,8 +860,8 @@ private List<AudioPlaylist> parsePlaylistItems(JsonBrowser items, ExtendedAudioP
     }
 
     var artistJson =
-      this.getJson(
-          API_BASE + "artists/" + json.get("artists").index(0).get("id").text()
+      this.artistCache.getArtist(
+          json.get("artists").index(0).get("id").text()
         );
     if (artistJson != null) {
       json.get("artists").index(0).put("images", artistJson.get("images"));
@@ -566,21 +901,21 @@ var artistName = String.join(", ", artistNamesList);
 
     AudioTrackInfo trackInfo = new AudioTrackInfo(
         json.get("name").text(),
-        artistName,
+        StringPool.intern(artistName),
         preview ? PREVIEW_LENGTH : json.get("duration_ms").asLong(0),
         json.get("id").text(),
         false,
         json.get("external_urls").get("spotify").text(),
-        json.get("album").get("images").index(0).get("url").text(),
+        StringPool.intern(json.get("album").get("images").index(0).get("url").text()),
         json.get("external_ids").get("isrc").text()
     );
 
     return new SpotifyAudioTrack(
         trackInfo,
-        json.get("album").get("name").text(),
-        json.get("album").get("external_urls").get("spotify").text(),
-        artistsArray.index(0).get("external_urls").get("spotify").text(),
-        artistsArray.index(0).get("images").index(0).get("url").text(),
+        StringPool.intern(json.get("album").get("name").text()),
+        StringPool.intern(json.get("album").get("external_urls").get("spotify").text()),
+        StringPool.intern(artistsArray.index(0).get("external_urls").get("spotify").text()),
+        StringPool.intern(artistsArray.index(0).get("images").index(0).get("url").text()),
         json.get("preview_url").text(),
         preview,
         this
@@ -588,13 +923,38 @@ var artistName = String.join(", ", artistNamesList);
 }
 
 
+  /**
+   * Fallback for tracks which still miss their ISRC, like album tracks whose lookup failed or which were decoded from before it was done.
+   */
+  @Override
+  @Nullable
+  public String getIsrc(MirroringAudioTrack track) throws IOException {
+    var isrc = super.getIsrc(track);
+    if (isrc != null) {
+      return isrc;
+    }
+    var id = track.getIdentifier();
+    var fullTrack =
+      this.loadCached(
+          MetadataCache.Type.TRACK,
+          id,
+          this.countryCode,
+          () -> this.getTrack(id, false)
+        );
+    return fullTrack instanceof AudioTrack
+      ? ((AudioTrack) fullTrack).getInfo().isrc
+      : null;
+  }
+
   @Override
   public void shutdown() {
+    ExecutorTools.shutdownExecutor(this.loaderExecutor, "spotify loader");
     try {
       this.httpInterfaceManager.close();
     } catch (IOException e) {
       log.error("Failed to close HTTP interface manager", e);
     }
+    super.shutdown();
   }
 
   @Override
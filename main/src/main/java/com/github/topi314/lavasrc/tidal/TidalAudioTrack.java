@@ -51,6 +51,12 @@ public class TidalAudioTrack extends MirroringAudioTrack {
   protected AudioTrack makeShallowClone() {
     return new TidalAudioTrack(
       this.trackInfo,
+      this.albumName,
+      this.albumUrl,
+      this.artistUrl,
+      this.artistArtworkUrl,
+      this.previewUrl,
+      this.isPreview,
       (TidalSourceManager) this.sourceManager
     );
   }
@@ -1,10 +1,16 @@
 package com.github.topi314.lavasrc.tidal;
 
+import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
+import com.github.topi314.lavasrc.IncrementalPlaylistLoader;
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.MetadataCache;
+import com.github.topi314.lavasrc.PlaylistPageHandler;
+import com.github.topi314.lavasrc.StringPool;
 import com.github.topi314.lavasrc.mirror.DefaultMirroringAudioTrackResolver;
 import com.github.topi314.lavasrc.mirror.MirroringAudioSourceManager;
 import com.github.topi314.lavasrc.mirror.MirroringAudioTrackResolver;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpConfigurable;
@@ -18,25 +24,27 @@ import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.net.SocketTimeoutException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 
-public class TidalSourceManager extends MirroringAudioSourceManager implements HttpConfigurable {
+public class TidalSourceManager extends MirroringAudioSourceManager implements HttpConfigurable, IncrementalPlaylistLoader {
 
     public static final Pattern URL_PATTERN = Pattern.compile(
             "https?://(?:(?:listen|www)\\.)?tidal\\.com/(?:browse/)?(?<type>album|track|playlist|mix)/(?<id>[a-zA-Z0-9\\-]+)(?:\\?.*)?");
 
     public static final String SEARCH_PREFIX = "tdsearch:";
     public static final String PUBLIC_API_BASE = "https://api.tidal.com/v1/";
+    public static final String BROWSE_BASE = "https://tidal.com/browse/";
+    public static final String IMAGES_BASE = "https://resources.tidal.com/images/";
     public static final int PLAYLIST_MAX_PAGE_ITEMS = 750;
     public static final int ALBUM_MAX_PAGE_ITEMS = 120;
     private static final String USER_AGENT = "TIDAL/3704 CFNetwork/1220.1 Darwin/20.3.0";
@@ -44,7 +52,10 @@ public class TidalSourceManager extends MirroringAudioSourceManager implements H
     private static final Logger log = LoggerFactory.getLogger(TidalSourceManager.class);
 
     private final HttpInterfaceManager httpInterfaceManager = HttpClientTools.createDefaultThreadLocalManager();
+    private final ExecutorService loaderExecutor = LavaSrcTools.createLoaderExecutor("tidal");
     private int searchLimit = 6;
+    private int playlistPageLimit = 6;
+    private int albumPageLimit = 6;
     private final String countryCode;
 
     public TidalSourceManager(String[] providers, String countryCode, Function<Void, AudioPlayerManager> audioPlayerManager) {
@@ -60,14 +71,21 @@ public class TidalSourceManager extends MirroringAudioSourceManager implements H
         this.searchLimit = searchLimit;
     }
 
+    public void setPlaylistPageLimit(int playlistPageLimit) {
+        this.playlistPageLimit = playlistPageLimit;
+    }
+
+    public void setAlbumPageLimit(int albumPageLimit) {
+        this.albumPageLimit = albumPageLimit;
+    }
+
     @Override
     public String getSourceName() {
         return "tidal";
     }
 
     @Override
-    public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) throws IOException {
-        var extendedAudioTrackInfo = super.decodeTrack(input);
+    protected AudioTrack createTrack(AudioTrackInfo trackInfo, ExtendedAudioTrackInfo extendedAudioTrackInfo) {
         return new TidalAudioTrack(trackInfo, extendedAudioTrackInfo.albumName, extendedAudioTrackInfo.albumUrl, extendedAudioTrackInfo.artistUrl, extendedAudioTrackInfo.artistArtworkUrl, extendedAudioTrackInfo.previewUrl, extendedAudioTrackInfo.isPreview, this);
     }
 
@@ -82,13 +100,13 @@ public class TidalSourceManager extends MirroringAudioSourceManager implements H
 
                 switch (type) {
                     case "album":
-                        return getAlbumOrPlaylist(id, "album", ALBUM_MAX_PAGE_ITEMS);
+                        return loadCached(MetadataCache.Type.ALBUM, id, countryCode, () -> getAlbumOrPlaylist(id, "album"));
                     case "mix":
-                        return getMix(id);
+                        return loadCached(MetadataCache.Type.PLAYLIST, "mix:" + id, countryCode, () -> getMix(id));
                     case "track":
-                        return getTrack(id);
+                        return loadCached(MetadataCache.Type.TRACK, id, countryCode, () -> getTrack(id));
                     case "playlist":
-                        return getAlbumOrPlaylist(id, "playlist", PLAYLIST_MAX_PAGE_ITEMS);
+                        return loadCached(MetadataCache.Type.PLAYLIST, id, countryCode, () -> getAlbumOrPlaylist(id, "playlist"));
                     default:
                         return null;
                 }
@@ -171,17 +189,30 @@ public class TidalSourceManager extends MirroringAudioSourceManager implements H
                 var currentArtistName = artistsArray.index(i).get("name").text();
                 artistName.append(i > 0 ? ", " : "").append(currentArtistName);
             }
-            var coverIdentifier = audio.get("album").get("cover").text();
+            var album = audio.get("album");
+            var coverIdentifier = album.get("cover").text();
             if (coverIdentifier == null) {
                 coverIdentifier = "https://tidal.com/_nuxt/img/logos.d8ce10b.jpg";
             }
             var isrc = audio.get("isrc").text();
-            var formattedCoverIdentifier = coverIdentifier.replaceAll("-", "/");
-            var artworkUrl = "https://resources.tidal.com/images/" +
-                    formattedCoverIdentifier +
-                    "/1280x1280.jpg";
+            var artworkUrl = getImageUrl(coverIdentifier, "1280x1280");
+
+            var albumId = album.get("id").text();
+            var albumUrl = albumId != null ? BROWSE_BASE + "album/" + albumId : null;
+            var firstArtist = artistsArray.index(0);
+            var artistId = firstArtist.get("id").text();
+            var artistUrl = artistId != null ? BROWSE_BASE + "artist/" + artistId : null;
+            var artistPicture = firstArtist.get("picture").text();
+            var artistArtworkUrl = artistPicture != null ? getImageUrl(artistPicture, "750x750") : null;
+
             return new TidalAudioTrack(
-                    new AudioTrackInfo(title, artistName.toString(), duration, id, false, originalUrl, artworkUrl, isrc),
+                    new AudioTrackInfo(title, StringPool.intern(artistName.toString()), duration, id, false, originalUrl, StringPool.intern(artworkUrl), isrc),
+                    StringPool.intern(album.get("title").text()),
+                    StringPool.intern(albumUrl),
+                    StringPool.intern(artistUrl),
+                    StringPool.intern(artistArtworkUrl),
+                    null,
+                    false,
                     this);
         } catch (NumberFormatException e) {
             log.error("Error parsing duration for track. Audio JSON: {}", audio, e);
@@ -189,51 +220,119 @@ public class TidalSourceManager extends MirroringAudioSourceManager implements H
         }
     }
 
-    private AudioItem getAlbumOrPlaylist(String itemId, String type, int maxPageItems) throws IOException {
+    private static String getImageUrl(String imageId, String size) {
+        return IMAGES_BASE + imageId.replace('-', '/') + "/" + size + ".jpg";
+    }
+
+    private AudioItem getAlbumOrPlaylist(String itemId, String type) throws IOException {
         try {
-            String apiUrl = PUBLIC_API_BASE +
-                    type +
-                    "s/" +
-                    itemId +
-                    "/tracks?countryCode=" +
-                    countryCode +
-                    "&limit=" +
-                    maxPageItems;
-            var json = getApiResponse(apiUrl);
+            var infoFuture = getInfo(type, itemId);
+            var maxPageItems = getMaxPageItems(type);
+            var firstPage = getApiResponse(getPageUrl(type, itemId, 0, maxPageItems));
 
-            if (json == null || json.get("items").isNull()) {
+            if (firstPage == null || firstPage.get("items").isNull()) {
+                infoFuture.cancel(false);
                 return AudioReference.NO_TRACK;
             }
 
-            var items = parseTrackItem(json);
+            var items = LavaSrcTools.flatten(LavaSrcTools.awaitAll(getTrackPages(type, itemId, firstPage, maxPageItems)));
 
             if (items.isEmpty()) {
+                infoFuture.cancel(false);
                 return AudioReference.NO_TRACK;
             }
 
-            String itemTitle = "";
-            String itemInfoUrl = "";
+            return createPlaylist(type, itemId, LavaSrcTools.await(infoFuture), items);
+        } catch (SocketTimeoutException e) {
+            log.error("Socket timeout while fetching {} info for ID: {}", type, itemId, e);
+        } catch (Exception e) {
+            log.error("Error fetching {} info for ID: {}", type, itemId, e);
+        }
 
-            if (type.equalsIgnoreCase("playlist")) {
-                itemInfoUrl = PUBLIC_API_BASE + "playlists/" + itemId + "?countryCode=" + countryCode;
-            } else if (type.equalsIgnoreCase("album")) {
-                itemInfoUrl = PUBLIC_API_BASE + "albums/" + itemId + "?countryCode=" + countryCode;
-            }
+        return AudioReference.NO_TRACK;
+    }
 
-            var itemInfoJson = getApiResponse(itemInfoUrl);
+    @Override
+    public boolean loadPlaylist(String identifier, PlaylistPageHandler handler) {
+        var matcher = URL_PATTERN.matcher(identifier);
+        if (!matcher.matches()) {
+            return false;
+        }
+        var type = matcher.group("type");
+        var id = matcher.group("id");
+        if (!type.equals("album") && !type.equals("playlist") && !type.equals("mix")) {
+            return false;
+        }
 
-            if (itemInfoJson != null && !itemInfoJson.get("title").isNull()) {
-                itemTitle = itemInfoJson.get("title").text();
+        try {
+            var infoFuture = getInfo(type, id);
+            var maxPageItems = getMaxPageItems(type);
+            var firstPage = getApiResponse(getPageUrl(type, id, 0, maxPageItems));
+            if (firstPage == null || firstPage.get("items").isNull()) {
+                infoFuture.cancel(false);
+                handler.noMatches();
+                return true;
             }
 
-            return new BasicAudioPlaylist(itemTitle, items, null, false);
-        } catch (SocketTimeoutException e) {
-            log.error("Socket timeout while fetching {} info for ID: {}", type, itemId, e);
+            var pages = getTrackPages(type, id, firstPage, maxPageItems);
+            var info = LavaSrcTools.await(infoFuture);
+            LavaSrcTools.loadPagesIncrementally(pages, tracks -> createPlaylist(type, id, info, tracks), handler);
         } catch (Exception e) {
-            log.error("Error fetching {} info for ID: {}", type, itemId, e);
+            handler.loadFailed(e);
         }
+        return true;
+    }
 
-        return AudioReference.NO_TRACK;
+    /**
+     * Requests the title of an album or playlist, so it can run alongside the first page.
+     */
+    private CompletableFuture<JsonBrowser> getInfo(String type, String id) {
+        if (type.equals("mix")) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return LavaSrcTools.supplyAsync(() -> getApiResponse(PUBLIC_API_BASE + type + "s/" + id + "?countryCode=" + countryCode), loaderExecutor);
+    }
+
+    private int getMaxPageItems(String type) {
+        return type.equals("album") ? ALBUM_MAX_PAGE_ITEMS : PLAYLIST_MAX_PAGE_ITEMS;
+    }
+
+    private String getPageUrl(String type, String id, int offset, int limit) {
+        return PUBLIC_API_BASE +
+                (type.equals("mix") ? "mixes/" + id + "/items" : type + "s/" + id + "/tracks") +
+                "?countryCode=" +
+                countryCode +
+                "&limit=" +
+                limit +
+                "&offset=" +
+                offset;
+    }
+
+    private List<CompletableFuture<List<AudioTrack>>> getTrackPages(String type, String id, JsonBrowser firstPage, int maxPageItems) {
+        var total = (int) firstPage.get("totalNumberOfItems").asLong(0);
+        var pageLimit = type.equals("album") ? albumPageLimit : playlistPageLimit;
+        var pageCount = Math.max(1, Math.min(pageLimit, (total + maxPageItems - 1) / maxPageItems));
+        var pages = new ArrayList<CompletableFuture<List<AudioTrack>>>(pageCount);
+        pages.add(CompletableFuture.completedFuture(parseTrackItem(firstPage)));
+        for (var i = 1; i < pageCount; i++) {
+            var offset = i * maxPageItems;
+            pages.add(LavaSrcTools.supplyAsync(() -> {
+                var page = getApiResponse(getPageUrl(type, id, offset, maxPageItems));
+                return page == null ? List.<AudioTrack>of() : parseTrackItem(page);
+            }, loaderExecutor));
+        }
+        return pages;
+    }
+
+    private ExtendedAudioPlaylist createPlaylist(String type, String id, JsonBrowser info, List<AudioTrack> tracks) {
+        if (type.equals("mix")) {
+            return new ExtendedAudioPlaylist("Mix: " + id, tracks, ExtendedAudioPlaylist.Type.PLAYLIST, "https://tidal.com/browse/mix/" + id, null, null, null);
+        }
+        var title = info != null && !info.get("title").isNull() ? info.get("title").text() : "";
+        var total = info != null && !info.get("numberOfTracks").isNull() ? (int) info.get("numberOfTracks").asLong(0) : null;
+        // albums name their artist, playlists their creator
+        var author = info != null ? info.get(type.equals("album") ? "artist" : "creator").get("name").text() : null;
+        return new ExtendedAudioPlaylist(title, tracks, type.equals("album") ? ExtendedAudioPlaylist.Type.ALBUM : ExtendedAudioPlaylist.Type.PLAYLIST, "https://tidal.com/browse/" + type + "/" + id, null, author, total);
     }
 
     public AudioItem getTrack(String trackId) throws IOException {
@@ -262,27 +361,7 @@ public class TidalSourceManager extends MirroringAudioSourceManager implements H
     }
 
     public AudioItem getMix(String mixId) throws IOException {
-        try {
-            String apiUrl = PUBLIC_API_BASE + "mixes/" + mixId + "/items?countryCode=" + countryCode;
-            var json = getApiResponse(apiUrl);
-
-            if (json == null || json.get("items").isNull()) {
-                log.info("Mix not found for ID: {}", mixId);
-                return AudioReference.NO_TRACK;
-            }
-
-            var items = parseTrackItem(json);
-
-            if (items.isEmpty()) {
-                return AudioReference.NO_TRACK;
-            }
-
-            log.info("Mix loaded successfully for ID: {}", mixId);
-            return new BasicAudioPlaylist("Mix: " + mixId, items, null, false);
-        } catch (SocketTimeoutException e) {
-            log.error("Socket timeout while fetching track with ID: {}", mixId, e);
-            return AudioReference.NO_TRACK;
-        }
+        return getAlbumOrPlaylist(mixId, "mix");
     }
 
     private List<AudioTrack> parseTrackItem(JsonBrowser json) {
@@ -299,10 +378,6 @@ public class TidalSourceManager extends MirroringAudioSourceManager implements H
         return tracks;
     }
 
-    @Override
-    public void encodeTrack(AudioTrack track, DataOutput output) {
-    }
-
     @Override
     public void configureRequests(Function<RequestConfig, RequestConfig> configurator) {
         httpInterfaceManager.configureRequests(configurator);
@@ -315,11 +390,13 @@ public class TidalSourceManager extends MirroringAudioSourceManager implements H
 
     @Override
     public void shutdown() {
+        ExecutorTools.shutdownExecutor(loaderExecutor, "tidal loader");
         try {
             httpInterfaceManager.close();
         } catch (IOException e) {
             log.error("Failed to close HTTP interface manager", e);
         }
+        super.shutdown();
     }
 
     public HttpInterface getHttpInterface() {
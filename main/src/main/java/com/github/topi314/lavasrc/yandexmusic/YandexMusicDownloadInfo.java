@@ -0,0 +1,89 @@
+package com.github.topi314.lavasrc.yandexmusic;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The download-info document of a track, a flat xml document with the host, path and signing values of its mp3.
+ * It is small and fixed enough to be read with plain string searches instead of an xml parser.
+ */
+final class YandexMusicDownloadInfo {
+
+  private static final String SIGN_SALT = "XGRlBW9FXlekgbPrRHuSiA";
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final String host;
+  private final String path;
+  private final String ts;
+  private final String s;
+
+  private YandexMusicDownloadInfo(String host, String path, String ts, String s) {
+    this.host = host;
+    this.path = path;
+    this.ts = ts;
+    this.s = s;
+  }
+
+  @Nullable
+  static YandexMusicDownloadInfo parse(String xml) {
+    var host = getElementText(xml, "host");
+    var path = getElementText(xml, "path");
+    var ts = getElementText(xml, "ts");
+    var s = getElementText(xml, "s");
+    if (host == null || path == null || ts == null || s == null) {
+      return null;
+    }
+    return new YandexMusicDownloadInfo(host, path, ts, s);
+  }
+
+  String getUrl() throws NoSuchAlgorithmException {
+    var digest = MessageDigest
+      .getInstance("MD5")
+      .digest((SIGN_SALT + this.path + this.s).getBytes(StandardCharsets.UTF_8));
+    return (
+      "https://" +
+      this.host +
+      "/get-mp3/" +
+      toHex(digest) +
+      "/" +
+      this.ts +
+      this.path
+    );
+  }
+
+  @Nullable
+  private static String getElementText(String xml, String name) {
+    var open = "<" + name + ">";
+    var start = xml.indexOf(open);
+    if (start == -1) {
+      return null;
+    }
+    start += open.length();
+    var end = xml.indexOf("</" + name + ">", start);
+    if (end == -1) {
+      return null;
+    }
+    var text = xml.substring(start, end).trim();
+    return text.indexOf('&') == -1 ? text : unescape(text);
+  }
+
+  private static String unescape(String text) {
+    return text
+      .replace("&lt;", "<")
+      .replace("&gt;", ">")
+      .replace("&quot;", "\"")
+      .replace("&apos;", "'")
+      .replace("&amp;", "&");
+  }
+
+  private static String toHex(byte[] bytes) {
+    var chars = new char[bytes.length * 2];
+    for (var i = 0; i < bytes.length; i++) {
+      chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+      chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+    }
+    return new String(chars);
+  }
+}
@@ -1,9 +1,14 @@
 package com.github.topi314.lavasrc.yandexmusic;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.topi314.lavasrc.CredentialPool;
 import com.github.topi314.lavasrc.ExtendedAudioPlaylist;
+import com.github.topi314.lavasrc.ExtendedAudioSourceManager;
 import com.github.topi314.lavasrc.LavaSrcTools;
+import com.github.topi314.lavasrc.StringPool;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
-import com.sedmelluq.discord.lavaplayer.source.AudioSourceManager;
+import com.sedmelluq.discord.lavaplayer.tools.ExecutorTools;
 import com.sedmelluq.discord.lavaplayer.tools.JsonBrowser;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpClientTools;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpConfigurable;
@@ -11,16 +16,19 @@ import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterface;
 import com.sedmelluq.discord.lavaplayer.tools.io.HttpInterfaceManager;
 import com.sedmelluq.discord.lavaplayer.track.*;
 import java.io.DataInput;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -28,7 +36,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class YandexMusicSourceManager
-  implements AudioSourceManager, HttpConfigurable {
+  extends ExtendedAudioSourceManager
+  implements HttpConfigurable {
 
   public static final Pattern URL_PATTERN = Pattern.compile(
     "(https?://)?music\\.yandex\\.(ru|com)/(?<type1>artist|album)/(?<identifier>[0-9]+)/?((?<type2>track/)(?<identifier2>[0-9]+)/?)?"
@@ -38,6 +47,12 @@ public class YandexMusicSourceManager
   );
   public static final String SEARCH_PREFIX = "ymsearch:";
   public static final String PUBLIC_API_BASE = "https://api.music.yandex.net";
+  public static final String MUSIC_BASE = "https://music.yandex.ru";
+  public static final int TRACKS_BATCH_SIZE = 100;
+  public static final long DEFAULT_DOWNLOAD_URL_TTL_MS = TimeUnit.MINUTES.toMillis(
+    5
+  );
+  private static final int MAX_CACHED_DOWNLOAD_URLS = 10_000;
 
   private static final Logger log = LoggerFactory.getLogger(
     YandexMusicSourceManager.class
@@ -45,19 +60,120 @@ public class YandexMusicSourceManager
 
   private final HttpInterfaceManager httpInterfaceManager;
 
-  private final String accessToken;
+  private final CredentialPool<String> accessTokens;
+
+  private final ExecutorService loaderExecutor = LavaSrcTools.createLoaderExecutor(
+    "yandexmusic"
+  );
+
+  private int readAheadSize;
+  // null while reusing download urls is disabled
+  private Cache<String, String> downloadUrls = createDownloadUrlCache(
+    DEFAULT_DOWNLOAD_URL_TTL_MS
+  );
 
   public YandexMusicSourceManager(String accessToken) {
-    if (accessToken == null || accessToken.isEmpty()) {
+    this(accessToken == null ? List.<String>of() : List.of(accessToken));
+  }
+
+  public YandexMusicSourceManager(List<String> accessTokens) {
+    if (
+      accessTokens.isEmpty() ||
+      accessTokens.stream().anyMatch(token -> token == null || token.isEmpty())
+    ) {
       throw new IllegalArgumentException(
         "Yandex Music accessToken must be set"
       );
     }
-    this.accessToken = accessToken;
+    this.accessTokens = new CredentialPool<>(accessTokens);
     this.httpInterfaceManager =
       HttpClientTools.createDefaultThreadLocalManager();
   }
 
+  /**
+   * Sets how many bytes of a playing track are buffered ahead of the decoder, 0 disables reading ahead.
+   */
+  public void setReadAheadSize(int readAheadSize) {
+    this.readAheadSize = readAheadSize;
+  }
+
+  public int getReadAheadSize() {
+    return this.readAheadSize;
+  }
+
+  /**
+   * Sets how long a signed download url is reused for replays of the same track, 0 disables reusing them.
+   */
+  public void setDownloadUrlTtl(long downloadUrlTtl) {
+    this.downloadUrls =
+      downloadUrlTtl > 0 ? createDownloadUrlCache(downloadUrlTtl) : null;
+  }
+
+  private static Cache<String, String> createDownloadUrlCache(long ttl) {
+    return Caffeine
+      .newBuilder()
+      .expireAfterWrite(ttl, TimeUnit.MILLISECONDS)
+      .maximumSize(MAX_CACHED_DOWNLOAD_URLS)
+      .build();
+  }
+
+  /**
+   * Returns the signed mp3 url of a track, reusing the last one while it is fresh.
+   */
+  public String getDownloadUrl(String trackId) throws IOException {
+    var downloadUrls = this.downloadUrls;
+    if (downloadUrls != null) {
+      var cached = downloadUrls.getIfPresent(trackId);
+      if (cached != null) {
+        return cached;
+      }
+    }
+
+    var json =
+      this.getJson(PUBLIC_API_BASE + "/tracks/" + trackId + "/download-info");
+    if (json.isNull() || json.get("result").values().isEmpty()) {
+      throw new IllegalStateException(
+        "No download URL found for track " + trackId
+      );
+    }
+    var downloadInfoLink = json
+      .get("result")
+      .values()
+      .get(0)
+      .get("downloadInfoUrl")
+      .text();
+    var downloadInfoXml = this.getDownloadStrings(downloadInfoLink);
+    var downloadInfo = downloadInfoXml == null
+      ? null
+      : YandexMusicDownloadInfo.parse(downloadInfoXml);
+    if (downloadInfo == null) {
+      throw new IllegalStateException(
+        "No download URL found for track " + trackId
+      );
+    }
+
+    String url;
+    try {
+      url = downloadInfo.getUrl();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);
+    }
+    if (downloadUrls != null) {
+      downloadUrls.put(trackId, url);
+    }
+    return url;
+  }
+
+  /**
+   * Forgets the cached download url of a track, for when streaming from it failed.
+   */
+  public void invalidateDownloadUrl(String trackId) {
+    var downloadUrls = this.downloadUrls;
+    if (downloadUrls != null) {
+      downloadUrls.invalidate(trackId);
+    }
+  }
+
   @Override
   public String getSourceName() {
     return "yandexmusic";
@@ -213,29 +329,9 @@ public class YandexMusicSourceManager
       return AudioReference.NO_TRACK;
     }
 
-    JsonBrowser tracksJson = json.get("result").get("tracks");
-
-    // Check if it's not empty and has more than one element
-    if (
-      tracksJson.values().size() > 0 &&
-      tracksJson.index(0).get("track").isNull()
-    ) {
-      var trackIds = tracksJson
-        .values()
-        .stream()
-        .map(track -> track.get("track").get("id").text())
-        .collect(Collectors.joining(","));
-
-      var trackDetailsJson =
-        this.getJson(PUBLIC_API_BASE + "/tracks?trackIds=" + trackIds);
-
-      tracksJson = trackDetailsJson.get("result");
-    }
-
     var tracks = new ArrayList<AudioTrack>();
-
-    for (var track : tracksJson.values()) {
-      var parsedTrack = this.parseTrack(track.get("track"));
+    for (var track : this.getTrackBodies(json.get("result").get("tracks"))) {
+      var parsedTrack = this.parseTrack(track);
       if (parsedTrack != null) {
         tracks.add(parsedTrack);
       }
@@ -261,25 +357,80 @@ public class YandexMusicSourceManager
     );
   }
 
+  /**
+   * Returns the full track bodies of the playlist entries in playlist order.
+   * Entries which already embed their track are reused, the missing ones are requested in chunks concurrently.
+   */
+  private List<JsonBrowser> getTrackBodies(JsonBrowser entries)
+    throws IOException {
+    var missingIds = new ArrayList<String>();
+    for (var entry : entries.values()) {
+      if (entry.get("track").isNull() && entry.get("id").text() != null) {
+        missingIds.add(entry.get("id").text());
+      }
+    }
+
+    var fetched = new HashMap<String, JsonBrowser>(missingIds.size());
+    if (!missingIds.isEmpty()) {
+      var chunks = new ArrayList<CompletableFuture<JsonBrowser>>();
+      for (var i = 0; i < missingIds.size(); i += TRACKS_BATCH_SIZE) {
+        var trackIds = String.join(
+          ",",
+          missingIds.subList(
+            i,
+            Math.min(i + TRACKS_BATCH_SIZE, missingIds.size())
+          )
+        );
+        chunks.add(
+          LavaSrcTools.supplyAsync(
+            () -> this.getJson(PUBLIC_API_BASE + "/tracks?trackIds=" + trackIds),
+            this.loaderExecutor
+          )
+        );
+      }
+      for (var chunk : LavaSrcTools.awaitAll(chunks)) {
+        if (chunk == null) {
+          continue;
+        }
+        for (var track : chunk.get("result").values()) {
+          fetched.put(track.get("id").text(), track);
+        }
+      }
+    }
+
+    var bodies = new ArrayList<JsonBrowser>(entries.values().size());
+    for (var entry : entries.values()) {
+      var track = entry.get("track").isNull()
+        ? fetched.get(entry.get("id").text())
+        : entry.get("track");
+      if (track != null) {
+        bodies.add(track);
+      }
+    }
+    return bodies;
+  }
+
   public JsonBrowser getJson(String uri) throws IOException {
-    var request = new HttpGet(uri);
-    request.setHeader("Accept", "application/json");
-    request.setHeader("Authorization", "OAuth " + this.accessToken);
-    return LavaSrcTools.fetchResponseAsJson(
-      this.httpInterfaceManager.getInterface(),
-      request
-    );
+    return this.accessTokens.fetchResponseAsJson(
+        this.httpInterfaceManager.getInterface(),
+        accessToken -> {
+          var request = new HttpGet(uri);
+          request.setHeader("Accept", "application/json");
+          request.setHeader("Authorization", "OAuth " + accessToken);
+          return request;
+        }
+      );
   }
 
   public String getDownloadStrings(String uri) throws IOException {
-    var request = new HttpGet(uri);
-    request.setHeader("Accept", "application/json");
-    request.setHeader("Authorization", "OAuth " + this.accessToken);
-    return HttpClientTools.fetchResponseLines(
-      this.httpInterfaceManager.getInterface(),
-      request,
-      "downloadinfo-xml-page"
-    )[0];
+    return this.accessTokens.fetchResponseAsString(
+        this.httpInterfaceManager.getInterface(),
+        accessToken -> {
+          var request = new HttpGet(uri);
+          request.setHeader("Authorization", "OAuth " + accessToken);
+          return request;
+        }
+      );
   }
 
   private List<AudioTrack> parseTracks(JsonBrowser json) {
@@ -304,21 +455,37 @@ public class YandexMusicSourceManager
     var artist = json.get("major").get("name").text().equals("PODCASTS")
       ? json.get("albums").values().get(0).get("title").text()
       : json.get("artists").values().get(0).get("name").text();
-    var coverUri = json.get("albums").values().get(0).get("coverUri").text();
+    var album = json.get("albums").values().get(0);
+    var albumUrl = MUSIC_BASE + "/album/" + album.get("id").text();
+    var coverUri = album.get("coverUri").text();
+
+    String artistUrl = null;
+    String artistArtworkUrl = null;
+    var artists = json.get("artists").values();
+    if (!artists.isEmpty()) {
+      var firstArtist = artists.get(0);
+      if (firstArtist.get("id").text() != null) {
+        artistUrl = MUSIC_BASE + "/artist/" + firstArtist.get("id").text();
+      }
+      artistArtworkUrl =
+        this.formatCoverUri(firstArtist.get("cover").get("uri").text());
+    }
+
     return new YandexMusicAudioTrack(
       new AudioTrackInfo(
         json.get("title").text(),
-        artist,
+        StringPool.intern(artist),
         json.get("durationMs").as(Long.class),
         id,
         false,
-        "https://music.yandex.ru/album/" +
-        json.get("albums").values().get(0).get("id").text() +
-        "/track/" +
-        id,
-        this.formatCoverUri(coverUri),
+        albumUrl + "/track/" + id,
+        StringPool.intern(this.formatCoverUri(coverUri)),
         null
       ),
+      StringPool.intern(album.get("title").text()),
+      StringPool.intern(albumUrl),
+      StringPool.intern(artistUrl),
+      StringPool.intern(artistArtworkUrl),
       this
     );
   }
@@ -330,16 +497,24 @@ public class YandexMusicSourceManager
   }
 
   @Override
-  public boolean isTrackEncodable(AudioTrack track) {
-    return true;
+  public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input)
+    throws IOException {
+    return this.createTrack(trackInfo, super.decodeTrack(input));
   }
 
   @Override
-  public void encodeTrack(AudioTrack track, DataOutput output) {}
-
-  @Override
-  public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) {
-    return new YandexMusicAudioTrack(trackInfo, this);
+  protected AudioTrack createTrack(
+    AudioTrackInfo trackInfo,
+    ExtendedAudioTrackInfo extendedAudioTrackInfo
+  ) {
+    return new YandexMusicAudioTrack(
+      trackInfo,
+      extendedAudioTrackInfo.albumName,
+      extendedAudioTrackInfo.albumUrl,
+      extendedAudioTrackInfo.artistUrl,
+      extendedAudioTrackInfo.artistArtworkUrl,
+      this
+    );
   }
 
   @Override
@@ -356,6 +531,7 @@ public class YandexMusicSourceManager
 
   @Override
   public void shutdown() {
+    ExecutorTools.shutdownExecutor(this.loaderExecutor, "yandex music loader");
     try {
       this.httpInterfaceManager.close();
     } catch (IOException e) {
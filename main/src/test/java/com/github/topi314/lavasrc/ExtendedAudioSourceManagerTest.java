@@ -0,0 +1,230 @@
+package com.github.topi314.lavasrc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
+import com.sedmelluq.discord.lavaplayer.tools.DataFormatTools;
+import com.sedmelluq.discord.lavaplayer.track.AudioItem;
+import com.sedmelluq.discord.lavaplayer.track.AudioReference;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrackInfo;
+import com.sedmelluq.discord.lavaplayer.track.playback.LocalAudioTrackExecutor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+class ExtendedAudioSourceManagerTest {
+
+  // lavaplayer writes the track position after the source data
+  private static final long POSITION = 1234;
+
+  private final TestSourceManager sourceManager = new TestSourceManager();
+
+  @Test
+  void decodesTrackWithoutExtendedFields() throws IOException {
+    var data = new ByteArrayOutputStream();
+    var output = new DataOutputStream(data);
+    output.writeLong(POSITION);
+
+    var input = markable(data.toByteArray());
+    var info = this.sourceManager.decodeTrack(input);
+
+    assertNull(info.albumName);
+    assertFalse(info.isPreview);
+    assertEquals(POSITION, input.readLong());
+  }
+
+  @Test
+  void decodesLegacyTrack() throws IOException {
+    var data = legacyTrack();
+
+    this.assertLegacy(markable(data));
+    this.assertLegacy(nonMarkable(data));
+  }
+
+  @Test
+  void decodesLegacyTrackWithoutAlbumName() throws IOException {
+    var data = new ByteArrayOutputStream();
+    var output = new DataOutputStream(data);
+    DataFormatTools.writeNullableText(output, null);
+    DataFormatTools.writeNullableText(output, "album url");
+    DataFormatTools.writeNullableText(output, null);
+    DataFormatTools.writeNullableText(output, null);
+    DataFormatTools.writeNullableText(output, null);
+    output.writeBoolean(false);
+    output.writeLong(POSITION);
+
+    var input = nonMarkable(data.toByteArray());
+    var info = this.sourceManager.decodeTrack(input);
+
+    assertNull(info.albumName);
+    assertEquals("album url", info.albumUrl);
+    assertFalse(info.isPreview);
+    assertEquals(POSITION, input.readLong());
+  }
+
+  @Test
+  void decodesVersionedTrackWithPreview() throws IOException {
+    var data = this.encode(
+        new TestTrack("album", null, "artist url", null, "preview url", true),
+        null
+      );
+
+    for (var input : new DataInputStream[] {
+      markable(data),
+      nonMarkable(data),
+    }) {
+      var info = this.sourceManager.decodeTrack(input);
+      assertEquals("album", info.albumName);
+      assertNull(info.albumUrl);
+      assertEquals("artist url", info.artistUrl);
+      assertNull(info.artistArtworkUrl);
+      assertEquals("preview url", info.previewUrl);
+      assertTrue(info.isPreview);
+      assertNull(info.extension);
+      assertEquals(POSITION, input.readLong());
+    }
+  }
+
+  @Test
+  void decodesVersionedTrackWithExtension() throws IOException {
+    var extension = new byte[] { 1, 2, 3 };
+    var data = this.encode(
+        new TestTrack(null, "album url", null, "artwork url", null, false),
+        extension
+      );
+
+    var input = nonMarkable(data);
+    var info = this.sourceManager.decodeTrack(input);
+
+    assertNull(info.albumName);
+    assertEquals("album url", info.albumUrl);
+    assertEquals("artwork url", info.artistArtworkUrl);
+    assertFalse(info.isPreview);
+    assertArrayEquals(extension, info.extension);
+    assertEquals(POSITION, input.readLong());
+  }
+
+  private void assertLegacy(DataInputStream input) throws IOException {
+    var info = this.sourceManager.decodeTrack(input);
+    assertEquals("album", info.albumName);
+    assertEquals("album url", info.albumUrl);
+    assertEquals("artist url", info.artistUrl);
+    assertEquals("artwork url", info.artistArtworkUrl);
+    assertNull(info.previewUrl);
+    assertTrue(info.isPreview);
+    assertEquals(POSITION, input.readLong());
+  }
+
+  private byte[] encode(TestTrack track, @Nullable byte[] extension)
+    throws IOException {
+    this.sourceManager.extension = extension;
+    var data = new ByteArrayOutputStream();
+    var output = new DataOutputStream(data);
+    this.sourceManager.encodeTrack(track, output);
+    output.writeLong(POSITION);
+    return data.toByteArray();
+  }
+
+  private static byte[] legacyTrack() throws IOException {
+    var data = new ByteArrayOutputStream();
+    var output = new DataOutputStream(data);
+    DataFormatTools.writeNullableText(output, "album");
+    DataFormatTools.writeNullableText(output, "album url");
+    DataFormatTools.writeNullableText(output, "artist url");
+    DataFormatTools.writeNullableText(output, "artwork url");
+    DataFormatTools.writeNullableText(output, null);
+    output.writeBoolean(true);
+    output.writeLong(POSITION);
+    return data.toByteArray();
+  }
+
+  private static DataInputStream markable(byte[] data) {
+    return new DataInputStream(new ByteArrayInputStream(data));
+  }
+
+  private static DataInputStream nonMarkable(byte[] data) {
+    return new DataInputStream(new NonMarkableInputStream(new ByteArrayInputStream(data)));
+  }
+
+  private static class NonMarkableInputStream extends FilterInputStream {
+
+    private NonMarkableInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
+
+  private static class TestSourceManager extends ExtendedAudioSourceManager {
+
+    @Nullable
+    private byte[] extension;
+
+    @Override
+    public String getSourceName() {
+      return "test";
+    }
+
+    @Override
+    public AudioItem loadItem(
+      AudioPlayerManager manager,
+      AudioReference reference
+    ) {
+      return null;
+    }
+
+    @Override
+    public AudioTrack decodeTrack(AudioTrackInfo trackInfo, DataInput input) {
+      return null;
+    }
+
+    @Nullable
+    @Override
+    protected byte[] encodeExtension(ExtendedAudioTrack track) {
+      return this.extension;
+    }
+
+    @Override
+    public void shutdown() {}
+  }
+
+  private static class TestTrack extends ExtendedAudioTrack {
+
+    private TestTrack(
+      @Nullable String albumName,
+      @Nullable String albumUrl,
+      @Nullable String artistUrl,
+      @Nullable String artistArtworkUrl,
+      @Nullable String previewUrl,
+      boolean isPreview
+    ) {
+      super(
+        new AudioTrackInfo("title", "author", 0, "id", false, null),
+        albumName,
+        albumUrl,
+        artistUrl,
+        artistArtworkUrl,
+        previewUrl,
+        isPreview
+      );
+    }
+
+    @Override
+    public void process(LocalAudioTrackExecutor executor) {}
+  }
+}
@@ -13,6 +13,7 @@ public class AppleMusicConfig {
   private String keyID;
 
   private String mediaAPIToken;
+  private String[] mediaAPITokens = {};
   private int playlistLoadLimit;
   private int albumLoadLimit;
 
@@ -32,6 +33,14 @@ public class AppleMusicConfig {
     this.mediaAPIToken = mediaAPIToken;
   }
 
+  public String[] getMediaAPITokens() {
+    return this.mediaAPITokens;
+  }
+
+  public void setMediaAPITokens(String[] mediaAPITokens) {
+    this.mediaAPITokens = mediaAPITokens;
+  }
+
   public int getPlaylistLoadLimit() {
     return this.playlistLoadLimit;
   }
@@ -1,5 +1,6 @@
 package com.github.topi314.lavasrc.plugin;
 
+import com.github.topi314.lavasrc.deezer.DeezerFormat;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -9,6 +10,12 @@ public class DeezerConfig {
 
     private String masterDecryptionKey;
     private String arl;
+    private int playlistLoadLimit;
+    private int albumLoadLimit;
+    private int readAheadSize;
+    private DeezerFormat format = DeezerFormat.MP3_128;
+    private int highQualityStreamLimit;
+    private long bandwidthLimit;
 
     public String getMasterDecryptionKey() {
         return this.masterDecryptionKey;
@@ -25,4 +32,52 @@ public class DeezerConfig {
     public void setArl(String arl) {
         this.arl = arl;
     }
+
+    public int getPlaylistLoadLimit() {
+        return this.playlistLoadLimit;
+    }
+
+    public void setPlaylistLoadLimit(int playlistLoadLimit) {
+        this.playlistLoadLimit = playlistLoadLimit;
+    }
+
+    public int getAlbumLoadLimit() {
+        return this.albumLoadLimit;
+    }
+
+    public void setAlbumLoadLimit(int albumLoadLimit) {
+        this.albumLoadLimit = albumLoadLimit;
+    }
+
+    public int getReadAheadSize() {
+        return this.readAheadSize;
+    }
+
+    public void setReadAheadSize(int readAheadSize) {
+        this.readAheadSize = readAheadSize;
+    }
+
+    public DeezerFormat getFormat() {
+        return this.format;
+    }
+
+    public void setFormat(DeezerFormat format) {
+        this.format = format;
+    }
+
+    public int getHighQualityStreamLimit() {
+        return this.highQualityStreamLimit;
+    }
+
+    public void setHighQualityStreamLimit(int highQualityStreamLimit) {
+        this.highQualityStreamLimit = highQualityStreamLimit;
+    }
+
+    public long getBandwidthLimit() {
+        return this.bandwidthLimit;
+    }
+
+    public void setBandwidthLimit(long bandwidthLimit) {
+        this.bandwidthLimit = bandwidthLimit;
+    }
 }
\ No newline at end of file
@@ -5,12 +5,15 @@ import com.github.topi314.lavasearch.api.SearchManagerConfiguration;
 import com.github.topi314.lavasrc.applemusic.AppleMusicSourceManager;
 import com.github.topi314.lavasrc.deezer.DeezerAudioSourceManager;
 import com.github.topi314.lavasrc.flowerytts.FloweryTTSSourceManager;
+import com.github.topi314.lavasrc.spotify.SpotifyCredential;
 import com.github.topi314.lavasrc.spotify.SpotifySourceManager;
 import com.github.topi314.lavasrc.tidal.TidalSourceManager;
 import com.github.topi314.lavasrc.yandexmusic.YandexMusicSourceManager;
 // import com.github.topi314.lavasrc.youtube.YoutubeSearchManager;
 import com.sedmelluq.discord.lavaplayer.player.AudioPlayerManager;
 import dev.arbjerg.lavalink.api.AudioPlayerManagerConfiguration;
+import java.util.ArrayList;
+import java.util.List;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,15 +42,24 @@ public class LavaSrcPlugin
           SpotifyConfig spotifyConfig,
           TidalConfig tidalConfig,
           AppleMusicConfig appleMusicConfig,
+          DeezerConfig deezerConfig,
           YandexMusicConfig yandexMusicConfig,
           FloweryTTSConfig floweryTTSConfig
   ) {
     log.info("Loading BaldMan LavaSrc...");
 
     if (sourcesConfig.isSpotify()) {
+      var spotifyCredentials = new ArrayList<SpotifyCredential>();
+      if (spotifyConfig.getClientId() != null && !spotifyConfig.getClientId().isEmpty()) {
+        spotifyCredentials.add(new SpotifyCredential(spotifyConfig.getClientId(), spotifyConfig.getClientSecret()));
+      }
+      for (var client : spotifyConfig.getClients()) {
+        spotifyCredentials.add(new SpotifyCredential(client.getClientId(), client.getClientSecret()));
+      }
       this.spotify =
               new SpotifySourceManager(
                       pluginConfig.getProviders(),
+                      spotifyCredentials,
                       spotifyConfig.getCountryCode(),
                       unused -> manager
               );
@@ -68,12 +80,23 @@ public class LavaSrcPlugin
       if (tidalConfig.getSearchLimit() > 0) {
         this.tidal.setSearchLimit(tidalConfig.getSearchLimit());
       }
+      if (tidalConfig.getPlaylistLoadLimit() > 0) {
+        this.tidal.setPlaylistPageLimit(tidalConfig.getPlaylistLoadLimit());
+      }
+      if (tidalConfig.getAlbumLoadLimit() > 0) {
+        this.tidal.setAlbumPageLimit(tidalConfig.getAlbumLoadLimit());
+      }
     }
     if (sourcesConfig.isAppleMusic()) {
+      var mediaAPITokens = new ArrayList<String>();
+      if (appleMusicConfig.getMediaAPIToken() != null && !appleMusicConfig.getMediaAPIToken().isEmpty()) {
+        mediaAPITokens.add(appleMusicConfig.getMediaAPIToken());
+      }
+      mediaAPITokens.addAll(List.of(appleMusicConfig.getMediaAPITokens()));
       this.appleMusic =
               new AppleMusicSourceManager(
                       pluginConfig.getProviders(),
-                      appleMusicConfig.getMediaAPIToken(),
+                      mediaAPITokens,
                       appleMusicConfig.getCountryCode(),
                       unused -> manager
               );
@@ -88,10 +111,34 @@ public class LavaSrcPlugin
     }
     if (sourcesConfig.isDeezer()) {
       this.deezer = new DeezerAudioSourceManager();
+      if (deezerConfig.getPlaylistLoadLimit() > 0) {
+        this.deezer.setPlaylistPageLimit(deezerConfig.getPlaylistLoadLimit());
+      }
+      if (deezerConfig.getAlbumLoadLimit() > 0) {
+        this.deezer.setAlbumPageLimit(deezerConfig.getAlbumLoadLimit());
+      }
+      if (deezerConfig.getReadAheadSize() > 0) {
+        this.deezer.setReadAheadSize(deezerConfig.getReadAheadSize());
+      }
+      this.deezer.setArl(deezerConfig.getArl());
+      var formatPolicy = this.deezer.getFormatPolicy();
+      if (deezerConfig.getFormat() != null) {
+        formatPolicy.setMaxFormat(deezerConfig.getFormat());
+      }
+      formatPolicy.setHighQualityStreamLimit(deezerConfig.getHighQualityStreamLimit());
+      formatPolicy.setBandwidthLimit(deezerConfig.getBandwidthLimit());
     }
     if (sourcesConfig.isYandexMusic()) {
+      var accessTokens = new ArrayList<String>();
+      if (yandexMusicConfig.getAccessToken() != null && !yandexMusicConfig.getAccessToken().isEmpty()) {
+        accessTokens.add(yandexMusicConfig.getAccessToken());
+      }
+      accessTokens.addAll(List.of(yandexMusicConfig.getAccessTokens()));
       this.yandexMusic =
-              new YandexMusicSourceManager(yandexMusicConfig.getAccessToken());
+              new YandexMusicSourceManager(accessTokens);
+      if (yandexMusicConfig.getReadAheadSize() > 0) {
+        this.yandexMusic.setReadAheadSize(yandexMusicConfig.getReadAheadSize());
+      }
     }
     if (sourcesConfig.isFloweryTTS()) {
       this.flowerytts =
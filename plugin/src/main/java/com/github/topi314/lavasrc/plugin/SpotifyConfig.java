@@ -1,5 +1,7 @@
 package com.github.topi314.lavasrc.plugin;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -9,6 +11,7 @@ public class SpotifyConfig {
 
   private String clientId;
   private String clientSecret;
+  private List<Client> clients = new ArrayList<>();
   private String countryCode;
   private int playlistLoadLimit;
   private int albumLoadLimit;
@@ -29,6 +32,14 @@ public class SpotifyConfig {
     this.clientSecret = clientSecret;
   }
 
+  public List<Client> getClients() {
+    return this.clients;
+  }
+
+  public void setClients(List<Client> clients) {
+    this.clients = clients;
+  }
+
   public String getCountryCode() {
     return this.countryCode;
   }
@@ -52,4 +63,26 @@ public class SpotifyConfig {
   public void setAlbumLoadLimit(int albumLoadLimit) {
     this.albumLoadLimit = albumLoadLimit;
   }
+
+  public static class Client {
+
+    private String clientId;
+    private String clientSecret;
+
+    public String getClientId() {
+      return this.clientId;
+    }
+
+    public void setClientId(String clientId) {
+      this.clientId = clientId;
+    }
+
+    public String getClientSecret() {
+      return this.clientSecret;
+    }
+
+    public void setClientSecret(String clientSecret) {
+      this.clientSecret = clientSecret;
+    }
+  }
 }
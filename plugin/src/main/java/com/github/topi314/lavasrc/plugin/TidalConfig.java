@@ -9,7 +9,8 @@ public class TidalConfig {
 
   private String countryCode;
   private int searchLimit;
-  
+  private int playlistLoadLimit;
+  private int albumLoadLimit;
 
   public String getCountryCode() {
     return this.countryCode;
@@ -26,4 +27,20 @@ public int getSearchLimit() {
   public void setSearchLimit(int searchLimit) {
     this.searchLimit = searchLimit;
   }
+
+  public int getPlaylistLoadLimit() {
+    return this.playlistLoadLimit;
+  }
+
+  public void setPlaylistLoadLimit(int playlistLoadLimit) {
+    this.playlistLoadLimit = playlistLoadLimit;
+  }
+
+  public int getAlbumLoadLimit() {
+    return this.albumLoadLimit;
+  }
+
+  public void setAlbumLoadLimit(int albumLoadLimit) {
+    this.albumLoadLimit = albumLoadLimit;
+  }
 }
@@ -8,6 +8,8 @@ import org.springframework.stereotype.Component;
 public class YandexMusicConfig {
 
   private String accessToken;
+  private String[] accessTokens = {};
+  private int readAheadSize;
 
   public String getAccessToken() {
     return this.accessToken;
@@ -16,4 +18,20 @@ public class YandexMusicConfig {
   public void setAccessToken(String accessToken) {
     this.accessToken = accessToken;
   }
+
+  public String[] getAccessTokens() {
+    return this.accessTokens;
+  }
+
+  public void setAccessTokens(String[] accessTokens) {
+    this.accessTokens = accessTokens;
+  }
+
+  public int getReadAheadSize() {
+    return this.readAheadSize;
+  }
+
+  public void setReadAheadSize(int readAheadSize) {
+    this.readAheadSize = readAheadSize;
+  }
 }